@@ -0,0 +1,20 @@
+package com.chrono.auth.benchmark;
+
+import com.chrono.auth.security.JwtUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+final class BenchmarkFixtures {
+
+    static final String JWT_SECRET = "A_VERY_LONG_SECRET_KEY_FOR_JWT_THAT_IS_AT_LEAST_256_BITS_LONG_AND_SECURE_1234567890";
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtUtils jwtUtils() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+}
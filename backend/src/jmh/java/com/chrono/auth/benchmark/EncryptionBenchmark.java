@@ -0,0 +1,44 @@
+package com.chrono.auth.benchmark;
+
+import com.chrono.auth.utils.EncryptionUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptionBenchmark {
+
+    private final String secret = "JBSWY3DPEHPK3PXPJBSWY3DPEHPK3PXP";
+
+    private String encrypted;
+
+    @Setup
+    public void setUp() {
+        new EncryptionUtil().setKey("BenchmarkEncryptionKey");
+        encrypted = EncryptionUtil.encrypt(secret);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return EncryptionUtil.encrypt(secret);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return EncryptionUtil.decrypt(encrypted);
+    }
+}
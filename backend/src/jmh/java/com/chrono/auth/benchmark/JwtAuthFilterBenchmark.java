@@ -0,0 +1,81 @@
+package com.chrono.auth.benchmark;
+
+import com.chrono.auth.repository.RevokedTokenRepository;
+import com.chrono.auth.security.JwtAuthFilter;
+import com.chrono.auth.security.JwtPrincipal;
+import com.chrono.auth.security.JwtUtils;
+import com.chrono.auth.security.TokenRevocationList;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    // Tokens already on the revocation list; the benchmarked token is never one of them
+    @Param({ "0", "100000" })
+    private int revokedTokens;
+
+    private JwtAuthFilter filter;
+
+    private Cookie jwtCookie;
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = BenchmarkFixtures.jwtUtils();
+        filter = new JwtAuthFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "tokenRevocationList", revocationList());
+        jwtCookie = new Cookie("jwt", jwtUtils.generateJwtToken("benchuser", "ROLE_USER"));
+    }
+
+    @Benchmark
+    public Object doFilterInternal() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/otp");
+        request.setCookies(jwtCookie);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private TokenRevocationList revocationList() {
+        // Revoking only writes to the repository; the filter never reads it
+        RevokedTokenRepository repository = (RevokedTokenRepository) Proxy.newProxyInstance(
+                RevokedTokenRepository.class.getClassLoader(), new Class<?>[] { RevokedTokenRepository.class },
+                (proxy, method, args) -> null);
+        TokenRevocationList list = new TokenRevocationList(repository, Clock.systemUTC(), 100000, 0.001, 1000, 60000);
+        long expiresAt = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+        for (int i = 0; i < revokedTokens; i++) {
+            list.revoke(new JwtPrincipal("user" + i, null, "ROLE_USER", expiresAt, "revoked-" + i));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,62 @@
+package com.chrono.auth.benchmark;
+
+import com.chrono.auth.security.TokenBucketLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login limiter under a credential-stuffing pattern: all cores hammering a
+ * large key space, plus the worst case of every thread on one key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class LoginRateLimiterBenchmark {
+
+    @Param({ "100000", "1000000" })
+    private int keys;
+
+    private String[] keyNames;
+
+    private TokenBucketLimiter limiter;
+
+    @Setup
+    public void setUp() {
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "10." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff) + "/" + i;
+        }
+        limiter = new TokenBucketLimiter(Clock.systemUTC(), 5, 10, keys * 2);
+        for (String key : keyNames) {
+            limiter.tryAcquire(key);
+        }
+    }
+
+    @Benchmark
+    public long distinctKeys() {
+        return limiter.tryAcquire(keyNames[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    @Benchmark
+    public long singleHotKey() {
+        return limiter.tryAcquire(keyNames[0]);
+    }
+}
@@ -0,0 +1,98 @@
+package com.chrono.auth.benchmark;
+
+import com.chrono.auth.security.JwtPrincipal;
+import com.chrono.auth.security.JwtUtils;
+import com.chrono.auth.utils.EncryptionUtil;
+import com.chrono.auth.utils.SecretStore;
+import com.chrono.auth.utils.TotpBatchGenerator;
+import com.chrono.auth.utils.TotpCodeCache;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instrumented hot paths with no registry bound versus a Prometheus registry
+ * publishing percentile histograms, as configured in application.yml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({ "off", "prometheus" })
+    private String metrics;
+
+    private JwtUtils jwtUtils;
+
+    private String token;
+
+    private String encryptedSecret;
+
+    private TotpCodeCache codeCache;
+
+    private long step;
+
+    @Setup
+    public void setUp() {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        encryptionUtil.setKey("BenchmarkEncryptionKey");
+        encryptedSecret = EncryptionUtil.encrypt("JBSWY3DPEHPK3PXPJBSWY3DPEHPK3PXP");
+        jwtUtils = BenchmarkFixtures.jwtUtils();
+        token = jwtUtils.generateJwtToken("bench", 1L, "ROLE_USER");
+        SecretStore secretStore = new SecretStore(1024);
+        codeCache = new TotpCodeCache(Clock.systemUTC(), secretStore, new TotpBatchGenerator(secretStore, 256, 0),
+                10000, 2000);
+        step = codeCache.currentTimeStep();
+
+        if ("prometheus".equals(metrics)) {
+            PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+            registry.config().meterFilter(new MeterFilter() {
+                @Override
+                public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                    return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+                }
+            });
+            encryptionUtil.bindTo(registry);
+            jwtUtils.bindTo(registry);
+            codeCache.bindTo(registry);
+        }
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return EncryptionUtil.decrypt(encryptedSecret);
+    }
+
+    @Benchmark
+    public JwtPrincipal jwtCached() {
+        return jwtUtils.parse(token);
+    }
+
+    @Benchmark
+    public String totpGenerate() {
+        // Steps outside the cached windows always take the generate path
+        return codeCache.getCode(ThreadLocalRandom.current().nextLong(1024), encryptedSecret, step - 10);
+    }
+}
@@ -0,0 +1,161 @@
+package com.chrono.auth.benchmark;
+
+import com.chrono.auth.repository.OtpServiceRepository;
+import com.chrono.auth.repository.OtpServiceRepository.StreamedService;
+import com.chrono.auth.service.OtpCodeStream;
+import com.chrono.auth.utils.EncryptionUtil;
+import com.chrono.auth.utils.MutableClock;
+import com.chrono.auth.utils.SecretStore;
+import com.chrono.auth.utils.TotpAlgorithm;
+import com.chrono.auth.utils.TotpBatchGenerator;
+import com.chrono.auth.utils.TotpCodeCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One ticker publish to every open stream: two tabs per user, two services
+ * per user, sends run on the publishing thread. Divide the score by
+ * {@code connections} for the cost per connection. The heap the
+ * subscriptions retain is printed once per trial; the container's socket
+ * buffers come on top of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OtpCodeStreamBenchmark {
+
+    @Param({ "1000", "5000", "10000" })
+    private int connections;
+
+    private MutableClock clock;
+
+    private OtpCodeStream stream;
+
+    @Setup
+    public void setUp() {
+        new EncryptionUtil().setKey("BenchmarkEncryptionKey");
+        String secret = EncryptionUtil.encrypt("GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ");
+        clock = new MutableClock(System.currentTimeMillis());
+        SecretStore secretStore = new SecretStore(connections);
+        TotpCodeCache codeCache = new TotpCodeCache(clock, secretStore, new TotpBatchGenerator(secretStore, 256, 0),
+                connections, 2000);
+        stream = new OtpCodeStream(repository(secret), codeCache, JsonMapper.builder().build(), clock, 0,
+                connections, Runnable::run);
+
+        long heapBefore = usedHeap();
+        for (int i = 0; i < connections; i++) {
+            stream.register(new DiscardingEmitter(), (long) (i / 2 + 1), null, false);
+        }
+        System.out.printf("%n%d connections: %d heap bytes/connection%n", connections,
+                (usedHeap() - heapBefore) / connections);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stream.stop();
+    }
+
+    @Benchmark
+    public void publish() {
+        // Every call is a new boundary, so nothing is skipped as already published
+        clock.millis += 30_000L;
+        stream.publish();
+    }
+
+    private static OtpServiceRepository repository(String secret) {
+        return (OtpServiceRepository) Proxy.newProxyInstance(OtpServiceRepository.class.getClassLoader(),
+                new Class<?>[] { OtpServiceRepository.class }, (proxy, method, args) -> {
+                    if (!method.getName().equals("findStreamedServicesByUserIds")) {
+                        return null;
+                    }
+                    List<StreamedService> services = new ArrayList<>();
+                    for (Object userId : (Collection<?>) args[0]) {
+                        long id = (Long) userId;
+                        services.add(new Service(id * 2, "svc-" + id, id, "user-" + id, secret));
+                        services.add(new Service(id * 2 + 1, "svc-" + id + "b", id, "user-" + id, secret));
+                    }
+                    return services;
+                });
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class DiscardingEmitter extends SseEmitter {
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build();
+        }
+    }
+
+    private record Service(Long id, String serviceName, Long userId, String owner, String encryptedSecret)
+            implements StreamedService {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getServiceName() {
+            return serviceName;
+        }
+
+        @Override
+        public Long getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String getOwner() {
+            return owner;
+        }
+
+        @Override
+        public String getEncryptedSecretKey() {
+            return encryptedSecret;
+        }
+
+        @Override
+        public TotpAlgorithm getAlgorithm() {
+            return TotpAlgorithm.SHA1;
+        }
+
+        @Override
+        public int getDigits() {
+            return 6;
+        }
+
+        @Override
+        public int getPeriod() {
+            return 30;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.chrono.auth.benchmark;
+
+import com.chrono.auth.security.JwtUtils;
+import com.chrono.auth.utils.EncryptionUtil;
+import com.chrono.auth.utils.TotpUtils;
+import com.chrono.auth.utils.VirtualThreads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform-thread default vs virtual-thread mode for a burst of token requests.
+ *
+ * Each request verifies a JWT, holds a "connection" from a bounded pool for
+ * the query, decrypts the secret and generates a code, then waits on latency
+ * that holds no connection (LDAP, the client socket). The platform executor is
+ * Tomcat's default 200 threads; the virtual one starts a thread per request.
+ * With a small pool both modes should hit the same pool ceiling; with a larger
+ * pool only virtual threads get past 200 / request latency. The virtual mode
+ * needs a Java 21+ runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestConcurrencyBenchmark {
+
+    private static final int REQUESTS = 2000;
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({ "platform", "virtual" })
+    private String mode;
+
+    @Param({ "10", "100" })
+    private int poolSize;
+
+    @Param({ "2" })
+    private long queryMillis;
+
+    @Param({ "10" })
+    private long remoteMillis;
+
+    private ExecutorService executor;
+
+    private Semaphore connections;
+
+    private JwtUtils jwtUtils;
+
+    private String token;
+
+    private String encryptedSecret;
+
+    private final AtomicInteger poolTimeouts = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = "virtual".equals(mode)
+                ? VirtualThreads.newPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        // Hikari hands connections out without FIFO fairness either
+        connections = new Semaphore(poolSize);
+        jwtUtils = BenchmarkFixtures.jwtUtils();
+        token = jwtUtils.generateJwtToken("bench", 1L, "USER");
+        new EncryptionUtil().setKey("BenchmarkEncryptionKey");
+        encryptedSecret = EncryptionUtil.encrypt("JBSWY3DPEHPK3PXP");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        if (poolTimeouts.get() > 0) {
+            System.out.println("Connection pool timeouts: " + poolTimeouts.get());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void tokenRequests() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            executor.execute(() -> {
+                try {
+                    handle();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private void handle() {
+        if (jwtUtils.parse(token) == null) {
+            throw new IllegalStateException("Token rejected");
+        }
+        String secret;
+        try {
+            // spring.datasource.hikari.connection-timeout
+            if (!connections.tryAcquire(5, TimeUnit.SECONDS)) {
+                poolTimeouts.incrementAndGet();
+                return;
+            }
+            try {
+                Thread.sleep(queryMillis);
+                secret = EncryptionUtil.decrypt(encryptedSecret);
+            } finally {
+                connections.release();
+            }
+            TotpUtils.getTOTPCode(secret);
+            Thread.sleep(remoteMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
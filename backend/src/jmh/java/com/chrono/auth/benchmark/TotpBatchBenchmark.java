@@ -0,0 +1,134 @@
+package com.chrono.auth.benchmark;
+
+import com.chrono.auth.utils.EncryptionUtil;
+import com.chrono.auth.utils.SecretStore;
+import com.chrono.auth.utils.TotpAlgorithm;
+import com.chrono.auth.utils.TotpBatchGenerator;
+import com.chrono.auth.utils.TotpParameters;
+import com.chrono.auth.utils.TotpSecret;
+import com.chrono.auth.utils.TotpUtils;
+import org.apache.commons.codec.binary.Base32;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An admin-wide refresh: current and next codes for every service, spread
+ * over all three algorithms and two periods. {@code parallelism=1} is the
+ * single-core baseline; the other rows should scale with the cores available
+ * up to their count. {@code oneByOne} generates the same codes without
+ * batching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TotpBatchBenchmark {
+
+    private static final List<TotpParameters> PARAMETERS = List.of(
+            TotpParameters.DEFAULT,
+            new TotpParameters(TotpAlgorithm.SHA256, 8, 30),
+            new TotpParameters(TotpAlgorithm.SHA512, 6, 60));
+
+    @Param({ "1000", "10000" })
+    private int services;
+
+    @Param({ "1", "2", "4", "0" })
+    private int parallelism;
+
+    private List<TotpSecret> batch;
+
+    private SecretStore secretStore;
+
+    private TotpBatchGenerator generator;
+
+    @Setup
+    public void setUp() {
+        new EncryptionUtil().setKey("BenchmarkEncryptionKey");
+        Random random = new Random(42);
+        batch = new ArrayList<>(services);
+        for (long id = 0; id < services; id++) {
+            byte[] key = new byte[20];
+            random.nextBytes(key);
+            batch.add(new Service(id, EncryptionUtil.encrypt(new Base32().encodeAsString(key)),
+                    PARAMETERS.get((int) (id % PARAMETERS.size()))));
+        }
+        secretStore = new SecretStore(services);
+        generator = new TotpBatchGenerator(secretStore, 256, parallelism);
+        // Keys are decoded once and cached, as they are in a running server
+        generator.generate(batch, System.currentTimeMillis(), 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        generator.shutdown();
+    }
+
+    @Benchmark
+    public String[][] batch() {
+        return generator.generate(batch, System.currentTimeMillis(), 2);
+    }
+
+    @Benchmark
+    public String[] oneByOne() {
+        long millis = System.currentTimeMillis();
+        String[] codes = new String[2 * batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            TotpSecret service = batch.get(i);
+            TotpParameters parameters = service.parameters();
+            long step = parameters.timeStep(millis);
+            for (int s = 0; s < 2; s++) {
+                long counter = step + s;
+                int otp = secretStore.applyWithKey(service.getId(), service.getEncryptedSecretKey(),
+                        key -> TotpUtils.engine().generateCode(key, counter, parameters.digits(),
+                                parameters.algorithm()));
+                codes[2 * i + s] = TotpUtils.engine().format(otp, parameters.digits());
+            }
+        }
+        return codes;
+    }
+
+    private record Service(Long id, String encryptedSecret, TotpParameters parameters) implements TotpSecret {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getEncryptedSecretKey() {
+            return encryptedSecret;
+        }
+
+        @Override
+        public TotpAlgorithm getAlgorithm() {
+            return parameters.algorithm();
+        }
+
+        @Override
+        public int getDigits() {
+            return parameters.digits();
+        }
+
+        @Override
+        public int getPeriod() {
+            return parameters.period();
+        }
+    }
+}
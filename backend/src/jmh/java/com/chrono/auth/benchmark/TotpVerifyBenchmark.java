@@ -0,0 +1,70 @@
+package com.chrono.auth.benchmark;
+
+import com.chrono.auth.utils.EncryptionUtil;
+import com.chrono.auth.utils.InMemoryReplayGuard;
+import com.chrono.auth.utils.SecretStore;
+import com.chrono.auth.utils.TotpUtils;
+import com.chrono.auth.utils.TotpVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verification load test. Run with -t 1 and -t $(nproc) and divide the
+ * second score by the thread count to get verifications per second per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class TotpVerifyBenchmark {
+
+    private final String secret = "JBSWY3DPEHPK3PXPJBSWY3DPEHPK3PXP";
+
+    @Param({ "100000" })
+    private int services;
+
+    private String encryptedSecret;
+
+    private TotpVerifier verifier;
+
+    private Clock clock;
+
+    @Setup
+    public void setUp() {
+        new EncryptionUtil().setKey("BenchmarkEncryptionKey");
+        encryptedSecret = EncryptionUtil.encrypt(secret);
+        clock = Clock.systemUTC();
+        verifier = new TotpVerifier(clock, new InMemoryReplayGuard(), new SecretStore(services), 1);
+    }
+
+    @Benchmark
+    public TotpVerifier.Result verifyValidCode() {
+        // Valid code over many services: first hit per step is VALID, the rest REPLAYED
+        long serviceId = ThreadLocalRandom.current().nextInt(services);
+        String code = TotpUtils.getTOTPCode(secret, TotpUtils.timeStep(clock.millis()));
+        return verifier.verify(serviceId, encryptedSecret, code);
+    }
+
+    @Benchmark
+    public TotpVerifier.Result verifyWrongCode() {
+        long serviceId = ThreadLocalRandom.current().nextInt(services);
+        return verifier.verify(serviceId, encryptedSecret, "000000");
+    }
+}
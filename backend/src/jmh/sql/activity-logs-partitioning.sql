@@ -0,0 +1,99 @@
+-- Per-user activity log query latency: unindexed table vs. the partitioned,
+-- indexed layout managed by ActivityLogPartitionManager.
+--
+-- Run against a scratch MariaDB database (uses the Sequence engine):
+--   mariadb -u root -p chrono_bench < activity-logs-partitioning.sql
+-- Seeds @rows rows spread over 2 years and 10000 users into each table.
+
+SET @rows = 20000000;
+SET @users = 10000;
+SET @start = NOW(6) - INTERVAL 730 DAY;
+
+DROP TABLE IF EXISTS logs_before;
+DROP TABLE IF EXISTS logs_after;
+
+CREATE TABLE logs_before (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(100) NOT NULL,
+    action VARCHAR(50) NOT NULL,
+    details TEXT,
+    timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE logs_after (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(100) NOT NULL,
+    action VARCHAR(50) NOT NULL,
+    details TEXT,
+    timestamp DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (id, timestamp),
+    KEY idx_activity_logs_username_timestamp (username, timestamp),
+    KEY idx_activity_logs_timestamp_id (timestamp, id)
+)
+PARTITION BY RANGE COLUMNS(timestamp) (
+    PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
+
+-- Monthly partitions covering the seeded range, as the scheduled job would
+DELIMITER //
+CREATE OR REPLACE PROCEDURE premake_partitions()
+BEGIN
+    DECLARE m DATE DEFAULT DATE_FORMAT(@start, '%Y-%m-01');
+    WHILE m <= CURDATE() + INTERVAL 3 MONTH DO
+        SET @ddl = CONCAT('ALTER TABLE logs_after REORGANIZE PARTITION pmax INTO (PARTITION p',
+                DATE_FORMAT(m, '%Y%m'), ' VALUES LESS THAN (''', m + INTERVAL 1 MONTH,
+                '''), PARTITION pmax VALUES LESS THAN (MAXVALUE))');
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+        SET m = m + INTERVAL 1 MONTH;
+    END WHILE;
+END //
+DELIMITER ;
+CALL premake_partitions();
+DROP PROCEDURE premake_partitions;
+
+SET @ddl = CONCAT('INSERT INTO logs_before (username, action, details, timestamp) ',
+        'SELECT CONCAT(''user'', seq % @users), ELT(1 + seq % 3, ''VIEW_OTP'', ''LOGIN'', ''VERIFY_OTP''), ',
+        'CONCAT(''Service '', seq % 50), @start + INTERVAL (seq * 3) SECOND FROM seq_1_to_', @rows);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+INSERT INTO logs_after (username, action, details, timestamp)
+SELECT username, action, details, timestamp FROM logs_before;
+
+ANALYZE TABLE logs_before, logs_after;
+
+-- Query shapes issued by GET /api/logs: first page and a deeper keyset page
+SET profiling = 1;
+
+SELECT id, username, action, timestamp FROM logs_before
+WHERE username = 'user42' ORDER BY timestamp DESC, id DESC LIMIT 100;
+SELECT id, username, action, timestamp FROM logs_after
+WHERE username = 'user42' ORDER BY timestamp DESC, id DESC LIMIT 100;
+
+SELECT id, username, action, timestamp FROM logs_before
+WHERE username = 'user42' AND timestamp < NOW() - INTERVAL 180 DAY ORDER BY timestamp DESC, id DESC LIMIT 100;
+SELECT id, username, action, timestamp FROM logs_after
+WHERE username = 'user42' AND timestamp < NOW() - INTERVAL 180 DAY ORDER BY timestamp DESC, id DESC LIMIT 100;
+
+SHOW PROFILES;
+
+EXPLAIN SELECT id FROM logs_before WHERE username = 'user42' ORDER BY timestamp DESC, id DESC LIMIT 100;
+EXPLAIN SELECT id FROM logs_after WHERE username = 'user42' ORDER BY timestamp DESC, id DESC LIMIT 100;
+
+-- Retention: DELETE on the old layout vs. dropping the oldest partition
+SET @cutoff = DATE_FORMAT(@start, '%Y-%m-01') + INTERVAL 1 MONTH;
+SET @oldest = CONCAT('p', DATE_FORMAT(@start, '%Y%m'));
+
+SELECT NOW(6) INTO @t0;
+DELETE FROM logs_before WHERE timestamp < @cutoff;
+SELECT TIMESTAMPDIFF(MICROSECOND, @t0, NOW(6)) / 1000 AS delete_retention_ms;
+
+SELECT NOW(6) INTO @t0;
+SET @ddl = CONCAT('ALTER TABLE logs_after DROP PARTITION ', @oldest);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SELECT TIMESTAMPDIFF(MICROSECOND, @t0, NOW(6)) / 1000 AS drop_partition_retention_ms;
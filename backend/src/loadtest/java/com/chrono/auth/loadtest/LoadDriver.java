@@ -0,0 +1,256 @@
+package com.chrono.auth.loadtest;
+
+import org.HdrHistogram.Histogram;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load against a running backend.
+ *
+ * Every virtual user logs in through /api/auth/login and imports its own
+ * services in one CSV request. Worker threads then pick a random user and a
+ * weighted operation back to back, with no think time, so throughput is what
+ * the server sustains at the configured concurrency. Results from the warm-up
+ * are discarded.
+ */
+final class LoadDriver {
+
+    enum Operation {
+        LIST("list"),
+        TOKEN("token"),
+        LOGS("logs");
+
+        final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation '" + key + "', expected list, token or logs");
+        }
+    }
+
+    record Settings(String baseUrl, int users, int servicesPerUser, int concurrency, Duration warmup,
+            Duration duration, Map<Operation, Integer> mix) {
+    }
+
+    private record VirtualUser(String username, String cookie, long[] serviceIds) {
+    }
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // Base32 keys the importer accepts; the codes themselves are irrelevant here
+    private static final String SECRET = "JBSWY3DPEHPK3PXPJBSWY3DPEHPK3PXP";
+
+    private final Settings settings;
+
+    private final ObjectMapper objectMapper;
+
+    private final HttpClient client;
+
+    private final Operation[] weighted;
+
+    LoadDriver(Settings settings, ObjectMapper objectMapper) {
+        this.settings = settings;
+        this.objectMapper = objectMapper;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(2, settings.concurrency() / 4), LoadDriver::daemon))
+                .build();
+        List<Operation> slots = new ArrayList<>();
+        settings.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix has no positive weight");
+        }
+        this.weighted = slots.toArray(new Operation[0]);
+    }
+
+    Map<String, Object> run() throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency(), LoadDriver::daemon);
+        try {
+            OperationStats loginStats = new OperationStats();
+            OperationStats seedStats = new OperationStats();
+            long setupStarted = System.nanoTime();
+            List<VirtualUser> users = setUp(workers, loginStats, seedStats);
+            double setupSeconds = (System.nanoTime() - setupStarted) / 1e9;
+            Map<String, Object> setup = new LinkedHashMap<>();
+            setup.put("seconds", round(setupSeconds));
+            setup.put("login", loginStats.report(setupSeconds));
+            setup.put("seed", seedStats.report(setupSeconds));
+            report.put("setup", setup);
+
+            if (!settings.warmup().isZero()) {
+                drive(workers, users, settings.warmup());
+            }
+            Map<Operation, OperationStats> measured = drive(workers, users, settings.duration());
+            double seconds = settings.duration().toNanos() / 1e9;
+
+            Histogram total = new Histogram(3);
+            long errors = 0;
+            Map<String, Object> operations = new LinkedHashMap<>();
+            for (Map.Entry<Operation, OperationStats> entry : measured.entrySet()) {
+                entry.getValue().addTo(total);
+                errors += entry.getValue().errors();
+                operations.put(entry.getKey().key, entry.getValue().report(seconds));
+            }
+            report.put("total", OperationStats.report(total, errors, seconds));
+            report.put("operations", operations);
+        } finally {
+            workers.shutdownNow();
+        }
+        return report;
+    }
+
+    private List<VirtualUser> setUp(ExecutorService workers, OperationStats loginStats, OperationStats seedStats)
+            throws Exception {
+        ConcurrentLinkedQueue<VirtualUser> users = new ConcurrentLinkedQueue<>();
+        List<Future<?>> pending = new ArrayList<>();
+        for (int i = 0; i < settings.users(); i++) {
+            String username = "loadtest-" + i;
+            pending.add(workers.submit(() -> {
+                users.add(setUpUser(username, loginStats, seedStats));
+                return null;
+            }));
+        }
+        for (Future<?> future : pending) {
+            future.get();
+        }
+        return new ArrayList<>(users);
+    }
+
+    private VirtualUser setUpUser(String username, OperationStats loginStats, OperationStats seedStats)
+            throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(Map.of("username", username, "password", "loadtest"));
+        long started = System.nanoTime();
+        HttpResponse<String> login = client.send(request("/api/auth/login", null)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        loginStats.record(started, login.statusCode() == 200);
+        String cookie = login.headers().allValues("Set-Cookie").stream()
+                .filter(value -> value.startsWith("jwt="))
+                .map(value -> value.substring(0, value.indexOf(';') > 0 ? value.indexOf(';') : value.length()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        "Login for " + username + " returned " + login.statusCode() + " without a jwt cookie"));
+
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < settings.servicesPerUser(); i++) {
+            csv.append(username).append("-service-").append(i).append(',').append(SECRET).append('\n');
+        }
+        started = System.nanoTime();
+        HttpResponse<String> imported = client.send(request("/api/otp/import", cookie)
+                .header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        seedStats.record(started, imported.statusCode() == 200);
+        if (imported.statusCode() != 200) {
+            throw new IllegalStateException("Import for " + username + " returned " + imported.statusCode());
+        }
+
+        HttpResponse<String> listed = client.send(request("/api/otp?page=0&size=" + settings.servicesPerUser(), cookie)
+                .GET().build(), HttpResponse.BodyHandlers.ofString());
+        JsonNode items = objectMapper.readTree(listed.body()).path("items");
+        long[] ids = new long[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = items.get(i).path("id").asLong();
+        }
+        if (ids.length == 0 && settings.mix().getOrDefault(Operation.TOKEN, 0) > 0) {
+            throw new IllegalStateException("No services seeded for " + username + ": " + listed.body());
+        }
+        return new VirtualUser(username, cookie, ids);
+    }
+
+    private Map<Operation, OperationStats> drive(ExecutorService workers, List<VirtualUser> users, Duration length)
+            throws InterruptedException {
+        Map<Operation, OperationStats> stats = new LinkedHashMap<>();
+        for (Operation operation : settings.mix().keySet()) {
+            stats.put(operation, new OperationStats());
+        }
+        long deadline = System.nanoTime() + length.toNanos();
+        CountDownLatch done = new CountDownLatch(settings.concurrency());
+        for (int i = 0; i < settings.concurrency(); i++) {
+            workers.execute(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        VirtualUser user = users.get(random.nextInt(users.size()));
+                        Operation operation = weighted[random.nextInt(weighted.length)];
+                        long started = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = client.send(request(path(operation, user, random), user.cookie()).GET().build(),
+                                    HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (IOException e) {
+                            ok = false;
+                        }
+                        stats.get(operation).record(started, ok);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return stats;
+    }
+
+    private static String path(Operation operation, VirtualUser user, ThreadLocalRandom random) {
+        return switch (operation) {
+            case LIST -> "/api/otp?page=0&size=50";
+            case TOKEN -> "/api/otp/" + user.serviceIds()[random.nextInt(user.serviceIds().length)] + "/token";
+            case LOGS -> "/api/logs?limit=50";
+        };
+    }
+
+    private HttpRequest.Builder request(String path, String cookie) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(settings.baseUrl() + path))
+                .timeout(REQUEST_TIMEOUT);
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        return builder;
+    }
+
+    // Nothing shuts these pools down; they must not keep the JVM alive after main returns
+    private static Thread daemon(Runnable runnable) {
+        Thread thread = new Thread(runnable, "loadtest-client");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
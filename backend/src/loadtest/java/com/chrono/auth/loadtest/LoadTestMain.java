@@ -0,0 +1,122 @@
+package com.chrono.auth.loadtest;
+
+import com.chrono.auth.BackendApplication;
+import com.chrono.auth.loadtest.LoadDriver.Operation;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the backend with the "loadtest" profile (H2 in memory, bypass login)
+ * on a random port, runs {@link LoadDriver} against it and writes a JSON report.
+ *
+ * Options are --name=value: users, services-per-user, concurrency, warmup and
+ * duration (seconds), mix (e.g. list=20,token=70,logs=10), report, and
+ * base-url to drive an already running instance instead. Anything starting
+ * with --spring. or --app. is passed on to the backend.
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--spring.") || arg.startsWith("--app.") || arg.startsWith("--server.")) {
+                applicationArgs.add(arg);
+            } else if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Unrecognised argument: " + arg);
+            }
+        }
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.get("base-url");
+        if (baseUrl == null) {
+            SpringApplication application = BackendApplication.application();
+            application.setAdditionalProfiles("loadtest");
+            context = application.run(applicationArgs.toArray(new String[0]));
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        try {
+            LoadDriver.Settings settings = new LoadDriver.Settings(baseUrl,
+                    intOption(options, "users", 200),
+                    intOption(options, "services-per-user", 20),
+                    intOption(options, "concurrency", 64),
+                    Duration.ofSeconds(intOption(options, "warmup", 10)),
+                    Duration.ofSeconds(intOption(options, "duration", 30)),
+                    parseMix(options.getOrDefault("mix", "list=20,token=70,logs=10")));
+            ObjectMapper objectMapper = JsonMapper.builder().enable(SerializationFeature.INDENT_OUTPUT).build();
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("startedAt", Instant.now().toString());
+            report.put("config", config(settings, context != null));
+            report.putAll(new LoadDriver(settings, objectMapper).run());
+
+            Path reportFile = Path.of(options.getOrDefault("report", "target/loadtest/report.json"));
+            if (reportFile.getParent() != null) {
+                Files.createDirectories(reportFile.getParent());
+            }
+            objectMapper.writeValue(reportFile.toFile(), report);
+
+            System.out.println(objectMapper.writeValueAsString(report.get("total")));
+            System.out.println("Report written to " + reportFile.toAbsolutePath());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static Map<String, Object> config(LoadDriver.Settings settings, boolean embedded) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("target", embedded ? "embedded (loadtest profile)" : settings.baseUrl());
+        config.put("users", settings.users());
+        config.put("servicesPerUser", settings.servicesPerUser());
+        config.put("concurrency", settings.concurrency());
+        config.put("warmupSeconds", settings.warmup().toSeconds());
+        config.put("durationSeconds", settings.duration().toSeconds());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        settings.mix().forEach((operation, weight) -> mix.put(operation.key, weight));
+        config.put("mix", mix);
+        config.put("javaVersion", Runtime.version().toString());
+        config.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        return config;
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry '" + part + "', expected name=weight");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.of(pair[0].trim()), weight);
+            }
+        }
+        return weights;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
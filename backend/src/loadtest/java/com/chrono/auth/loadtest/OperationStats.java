@@ -0,0 +1,70 @@
+package com.chrono.auth.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error count for one kind of request, recorded in
+ * microseconds from any number of worker threads.
+ */
+final class OperationStats {
+
+    private static final long MAX_TRACKED_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Histogram latency = new ConcurrentHistogram(MAX_TRACKED_MICROS, 3);
+
+    private final LongAdder errors = new LongAdder();
+
+    void record(long startNanos, boolean ok) {
+        long micros = (System.nanoTime() - startNanos) / 1000;
+        latency.recordValue(Math.min(Math.max(micros, 1), MAX_TRACKED_MICROS));
+        if (!ok) {
+            errors.increment();
+        }
+    }
+
+    long requests() {
+        return latency.getTotalCount();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    void addTo(Histogram total) {
+        total.add(latency);
+    }
+
+    Map<String, Object> report(double seconds) {
+        return report(latency, errors.sum(), seconds);
+    }
+
+    static Map<String, Object> report(Histogram histogram, long errors, double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", histogram.getTotalCount());
+        report.put("errors", errors);
+        report.put("throughputPerSecond", round(histogram.getTotalCount() / seconds));
+        Map<String, Object> millis = new LinkedHashMap<>();
+        millis.put("mean", round(histogram.getMean() / 1000.0));
+        millis.put("p50", percentile(histogram, 50));
+        millis.put("p95", percentile(histogram, 95));
+        millis.put("p99", percentile(histogram, 99));
+        millis.put("p99.9", percentile(histogram, 99.9));
+        millis.put("max", round(histogram.getMaxValue() / 1000.0));
+        report.put("latencyMillis", millis);
+        return report;
+    }
+
+    private static double percentile(Histogram histogram, double percentile) {
+        return round(histogram.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
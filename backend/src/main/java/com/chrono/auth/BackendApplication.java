@@ -2,12 +2,24 @@ package com.chrono.auth;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BackendApplication {
 
+	// Startup steps kept for StartupReport until the first request has been served
+	private static final int STARTUP_STEPS = 10_000;
+
 	public static void main(String[] args) {
-		SpringApplication.run(BackendApplication.class, args);
+		application().run(args);
+	}
+
+	public static SpringApplication application() {
+		SpringApplication application = new SpringApplication(BackendApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		return application;
 	}
 
 }
@@ -0,0 +1,16 @@
+package com.chrono.auth.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class ClockConfig {
+
+    // Shared time source so time-step logic can be driven by a fixed clock in tests
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
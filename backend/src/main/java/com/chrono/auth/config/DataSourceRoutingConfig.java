@@ -0,0 +1,75 @@
+package com.chrono.auth.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+
+/**
+ * Sends read-only transactions to a replica when {@code app.datasource.replica.url}
+ * is set; otherwise Spring Boot's single datasource is left as it is.
+ *
+ * The application datasource is a {@link LazyConnectionDataSourceProxy}: it
+ * fetches the real connection at the first statement, once the transaction
+ * manager has marked it read-only or not. Writes, and work outside a
+ * transaction (migrations, JdbcTemplate batches), always get the primary.
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replica.url:}'.isEmpty()")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username}") String username,
+            @Value("${app.datasource.replica.password}") String password,
+            @Value("${app.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${spring.datasource.hikari.connection-timeout:5000}") long connectionTimeout) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeout);
+        dataSource.setReadOnly(true);
+        // Start even if the replica is down: its reads then fail over with an SQLException
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+            HikariDataSource replicaDataSource, Clock clock,
+            @Value("${app.datasource.replica.read-your-writes-ms:5000}") long readYourWritesMillis,
+            @Value("${app.datasource.replica.retry-after-ms:10000}") long retryAfterMillis,
+            @Value("${app.datasource.replica.max-tracked-writers:10000}") int maxTrackedWriters) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, clock,
+                readYourWritesMillis, retryAfterMillis, maxTrackedWriters);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+}
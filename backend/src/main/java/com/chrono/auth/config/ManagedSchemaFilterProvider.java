@@ -0,0 +1,62 @@
+package com.chrono.auth.config;
+
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+
+import java.util.Set;
+
+/**
+ * Keeps Hibernate's ddl-auto away from tables whose DDL is owned elsewhere,
+ * e.g. the partitioned activity_logs table maintained by
+ * {@link com.chrono.auth.service.ActivityLogPartitionManager}.
+ */
+public class ManagedSchemaFilterProvider implements SchemaFilterProvider {
+
+    private static final Set<String> MANAGED_TABLES = Set.of("activity_logs");
+
+    private static final SchemaFilter EXCLUDE_MANAGED = new SchemaFilter() {
+        @Override
+        public boolean includeNamespace(Namespace namespace) {
+            return true;
+        }
+
+        @Override
+        public boolean includeTable(Table table) {
+            return !MANAGED_TABLES.contains(table.getName().toLowerCase());
+        }
+
+        @Override
+        public boolean includeSequence(Sequence sequence) {
+            return true;
+        }
+    };
+
+    @Override
+    public SchemaFilter getCreateFilter() {
+        return EXCLUDE_MANAGED;
+    }
+
+    @Override
+    public SchemaFilter getDropFilter() {
+        return EXCLUDE_MANAGED;
+    }
+
+    @Override
+    public SchemaFilter getTruncatorFilter() {
+        return SchemaFilter.ALL;
+    }
+
+    @Override
+    public SchemaFilter getMigrateFilter() {
+        return EXCLUDE_MANAGED;
+    }
+
+    // Managed tables may not exist yet when the EntityManagerFactory validates
+    @Override
+    public SchemaFilter getValidateFilter() {
+        return EXCLUDE_MANAGED;
+    }
+}
@@ -0,0 +1,177 @@
+package com.chrono.auth.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connections for read-only transactions: the replica, unless it could be
+ * stale for the caller or is unreachable.
+ *
+ * Read-your-writes: a user's committed write transaction keeps that user's
+ * reads on the primary for {@code read-your-writes-ms}, which must cover the
+ * replica's lag. Other users' reads keep going to the replica and may trail
+ * the write by that lag. A failed replica connection sends all reads to the
+ * primary for {@code retry-after-ms} before the replica is tried again.
+ *
+ * Writes are remembered in this JVM only. With several backend instances a
+ * user's next request must reach the instance that served the write, e.g.
+ * through sticky sessions at the load balancer; on any other instance it
+ * reads from the replica and may miss the write for up to the replica's lag.
+ *
+ * Sits behind the read-only side of a {@code LazyConnectionDataSourceProxy},
+ * so it is asked only once a transaction has marked its connection read-only.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource
+        implements TransactionExecutionListener, MeterBinder {
+
+    private final DataSource primary;
+
+    private final DataSource replica;
+
+    private final Clock clock;
+
+    private final long readYourWritesMillis;
+
+    private final long retryAfterMillis;
+
+    private final int maxTrackedWriters;
+
+    // username -> time of their last committed write
+    private final ConcurrentHashMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    // The same writes in commit order, so the oldest are dropped first without scanning the map
+    private final ConcurrentLinkedQueue<Write> writeOrder = new ConcurrentLinkedQueue<>();
+
+    private volatile long replicaDownUntil;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder readYourWritesReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+    private final LongAdder replicaFailures = new LongAdder();
+    private final LongAdder evictedWriters = new LongAdder();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Clock clock,
+            long readYourWritesMillis, long retryAfterMillis, int maxTrackedWriters) {
+        this.primary = primary;
+        this.replica = replica;
+        this.clock = clock;
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.retryAfterMillis = retryAfterMillis;
+        this.maxTrackedWriters = maxTrackedWriters;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long now = clock.millis();
+        String user = currentUser();
+        if (user != null) {
+            Long lastWrite = lastWrites.get(user);
+            if (lastWrite != null && now - lastWrite < readYourWritesMillis) {
+                readYourWritesReads.increment();
+                return primary.getConnection();
+            }
+        }
+        if (now < replicaDownUntil) {
+            fallbackReads.increment();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.getConnection();
+            replicaReads.increment();
+            return connection;
+        } catch (SQLException e) {
+            replicaDownUntil = now + retryAfterMillis;
+            replicaFailures.increment();
+            fallbackReads.increment();
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Credentials come from the configured pools");
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly()) {
+            return;
+        }
+        String user = currentUser();
+        if (user == null) {
+            // Background work (audit writer, jobs): no reader to keep consistent
+            return;
+        }
+        long now = clock.millis();
+        // An entry only leaves the map if it is still that user's latest write
+        Write oldest;
+        while ((oldest = writeOrder.peek()) != null && now - oldest.at() >= readYourWritesMillis
+                && writeOrder.remove(oldest)) {
+            lastWrites.remove(oldest.user(), oldest.at());
+        }
+        while (!lastWrites.containsKey(user) && lastWrites.size() >= maxTrackedWriters
+                && (oldest = writeOrder.poll()) != null) {
+            // Over the bound within the window: the oldest writers read from the replica a little early
+            if (lastWrites.remove(oldest.user(), oldest.at())) {
+                evictedWriters.increment();
+            }
+        }
+        lastWrites.put(user, now);
+        writeOrder.add(new Write(user, now));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replicaReads", replicaReads.sum());
+        stats.put("readYourWritesReads", readYourWritesReads.sum());
+        stats.put("fallbackReads", fallbackReads.sum());
+        stats.put("replicaFailures", replicaFailures.sum());
+        stats.put("replicaAvailable", clock.millis() >= replicaDownUntil);
+        stats.put("trackedWriters", lastWrites.size());
+        stats.put("evictedWriters", evictedWriters.sum());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("chrono.datasource.reads", replicaReads, LongAdder::sum)
+                .description("Read-only transactions by the pool that served them")
+                .tag("target", "replica").tag("reason", "read_only").register(registry);
+        FunctionCounter.builder("chrono.datasource.reads", readYourWritesReads, LongAdder::sum)
+                .description("Read-only transactions by the pool that served them")
+                .tag("target", "primary").tag("reason", "read_your_writes").register(registry);
+        FunctionCounter.builder("chrono.datasource.reads", fallbackReads, LongAdder::sum)
+                .description("Read-only transactions by the pool that served them")
+                .tag("target", "primary").tag("reason", "replica_unavailable").register(registry);
+        FunctionCounter.builder("chrono.datasource.replica.failures", replicaFailures, LongAdder::sum)
+                .register(registry);
+    }
+
+    private record Write(String user, long at) {
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,21 @@
+package com.chrono.auth.config;
+
+import com.chrono.auth.service.ActivityLogWriter;
+import com.chrono.auth.service.StartupReport;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfig {
+
+    // Created at startup even with spring.main.lazy-initialization=true: migrations must be applied
+    // and checked before serving, and the audit writer drains its queue whether or not anyone logs in.
+    // Spring Boot already keeps beans with @Scheduled methods eager.
+    @Bean
+    static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class,
+                ActivityLogWriter.class, StartupReport.class);
+    }
+}
@@ -0,0 +1,26 @@
+package com.chrono.auth.config;
+
+import com.chrono.auth.repository.UsedTimeStepRepository;
+import com.chrono.auth.utils.DatabaseReplayGuard;
+import com.chrono.auth.utils.InMemoryReplayGuard;
+import com.chrono.auth.utils.ReplayGuard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TotpConfig {
+
+    @Value("${app.totp.verify.replay-store:memory}")
+    private String replayStore;
+
+    @Bean
+    public ReplayGuard replayGuard(UsedTimeStepRepository usedTimeStepRepository) {
+        if ("database".equalsIgnoreCase(replayStore)) {
+            // Shared across replicas
+            return new DatabaseReplayGuard(usedTimeStepRepository);
+        } else {
+            return new InMemoryReplayGuard();
+        }
+    }
+}
@@ -1,44 +1,198 @@
 package com.chrono.auth.controller;
 
+import com.chrono.auth.dto.ActivityLogFilter;
+import com.chrono.auth.dto.MessageResponse;
+import com.chrono.auth.dto.RecentActivity;
 import com.chrono.auth.entity.ActivityLog;
 import com.chrono.auth.repository.ActivityLogRepository;
+import com.chrono.auth.service.ActivityLogWriter;
+import com.chrono.auth.service.RecentActivityStore;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/logs")
 public class ActivityLogController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private ActivityLogRepository activityLogRepository;
 
-    @GetMapping
-    public ResponseEntity<?> getLogs(Authentication authentication) {
-        String username = authentication.getName();
+    @Autowired
+    private ActivityLogWriter activityLogWriter;
 
-        // Determine role to fetch all logs or just user logs
-        boolean isAdmin = authentication.getAuthorities().stream()
+    @Autowired
+    private RecentActivityStore recentActivityStore;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.logs.export-fetch-size:500}")
+    private int exportFetchSize;
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getLogs(Authentication authentication,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        // Determine role to fetch all logs or just user logs
+        String username = isAdmin(authentication) ? user : authentication.getName();
+        return page(new ActivityLogFilter(username, action, from, to), cursor, limit);
+    }
+
+    @GetMapping("/all")
+    public ResponseEntity<?> getAllLogs(Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        return page(new ActivityLogFilter(), cursor, limit);
+    }
+
+    // Served from memory; only requests deeper than the ring go to the database
+    @GetMapping("/recent")
+    public ResponseEntity<?> getRecentLogs(Authentication authentication,
+            @RequestParam(required = false) String user,
+            @RequestParam(defaultValue = "50") int limit) {
+        String username = isAdmin(authentication) ? user : authentication.getName();
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
 
-        List<ActivityLog> logs;
-        if (isAdmin) {
-            logs = activityLogRepository.findAllByOrderByTimestampDesc();
-        } else {
-            logs = activityLogRepository.findByUsernameOrderByTimestampDesc(username);
+        List<ActivityLog> items = username == null
+                ? recentActivityStore.recent(size)
+                : recentActivityStore.recentForUser(username, size);
+        String source = "memory";
+        if (items == null) {
+            items = activityLogRepository.findPage(new ActivityLogFilter(username, null, null, null), null, null, size);
+            source = "database";
         }
 
-        return ResponseEntity.ok(logs);
+        Map<String, Object> response = new LinkedHashMap<>();
+        // Same shape from either source: entries still in memory have no id yet
+        response.put("items", items.stream().map(RecentActivity::new).toList());
+        response.put("source", source);
+        return ResponseEntity.ok(response);
     }
 
-    @GetMapping("/all")
-    public ResponseEntity<?> getAllLogs() {
-        // Admin or debugging endpoint
-        return ResponseEntity.ok(activityLogRepository.findAllByOrderByTimestampDesc());
+    @GetMapping("/stats")
+    public ResponseEntity<?> getActivityStats(Authentication authentication,
+            @RequestParam(defaultValue = "60") int minutes) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        return ResponseEntity.ok(recentActivityStore.stats(minutes));
+    }
+
+    // NDJSON export that holds one row at a time regardless of table size
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportLogs(Authentication authentication,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        String username = isAdmin(authentication) ? user : authentication.getName();
+        ActivityLogFilter filter = new ActivityLogFilter(username, action, from, to);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        StreamingResponseBody body = out -> readOnly.executeWithoutResult(status -> {
+            try (Stream<ActivityLog> logs = activityLogRepository.streamAll(filter, exportFetchSize)) {
+                logs.forEach(log -> {
+                    writeLine(out, log);
+                    entityManager.detach(log);
+                });
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @GetMapping("/writer/stats")
+    public ResponseEntity<?> getWriterStats(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        return ResponseEntity.ok(activityLogWriter.stats());
+    }
+
+    private ResponseEntity<?> page(ActivityLogFilter filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime beforeTimestamp = null;
+        Long beforeId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                beforeTimestamp = LocalDateTime.parse(parts[0]);
+                beforeId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(new MessageResponse("Invalid cursor"));
+            }
+        }
+
+        // One extra row tells us whether there is a next page without a COUNT
+        List<ActivityLog> rows = activityLogRepository.findPage(filter, beforeTimestamp, beforeId, pageSize + 1);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            ActivityLog last = rows.get(pageSize - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getTimestamp() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", rows);
+        response.put("nextCursor", nextCursor);
+        return ResponseEntity.ok(response);
+    }
+
+    private void writeLine(OutputStream out, ActivityLog log) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(log));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -4,9 +4,12 @@ import com.chrono.auth.dto.LoginRequest;
 import com.chrono.auth.dto.MessageResponse;
 import com.chrono.auth.entity.ActivityLog;
 import com.chrono.auth.entity.User;
-import com.chrono.auth.repository.ActivityLogRepository;
-import com.chrono.auth.repository.UserRepository;
+import com.chrono.auth.security.JwtPrincipal;
 import com.chrono.auth.security.JwtUtils;
+import com.chrono.auth.security.TokenRevocationList;
+import com.chrono.auth.service.ActivityLogWriter;
+import com.chrono.auth.service.OtpCodeStream;
+import com.chrono.auth.service.UserCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseCookie;
@@ -17,6 +20,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -27,14 +31,20 @@ public class AuthController {
         private AuthenticationManager authenticationManager;
 
         @Autowired
-        private UserRepository userRepository;
+        private UserCache userCache;
 
         @Autowired
-        private ActivityLogRepository activityLogRepository;
+        private ActivityLogWriter activityLogWriter;
 
         @Autowired
         private JwtUtils jwtUtils;
 
+        @Autowired
+        private TokenRevocationList tokenRevocationList;
+
+        @Autowired
+        private OtpCodeStream otpCodeStream;
+
         @PostMapping("/login")
         public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
                 Authentication authentication = authenticationManager.authenticate(
@@ -45,12 +55,9 @@ public class AuthController {
 
                 // Ensure user exists in our DB, check role
                 String username = authentication.getName();
-                User user = userRepository.findByUsername(username).orElseGet(() -> {
-                        User newUser = new User(username);
-                        return userRepository.save(newUser);
-                });
+                User user = userCache.getOrCreate(username);
 
-                String jwt = jwtUtils.generateJwtToken(authentication.getName(), user.getRole());
+                String jwt = jwtUtils.generateJwtToken(authentication.getName(), user.getId(), user.getRole());
 
                 ResponseCookie jwtCookie = ResponseCookie.from("jwt", jwt)
                                 .path("/api")
@@ -58,7 +65,7 @@ public class AuthController {
                                 .httpOnly(true)
                                 .build();
 
-                activityLogRepository.save(new ActivityLog(username, "LOGIN", "User logged in successfully - Method: "
+                activityLogWriter.submit(new ActivityLog(username, "LOGIN", "User logged in successfully - Method: "
                                 + (authentication.getAuthorities().isEmpty() ? "Bypass" : "LDAP")));
 
                 return ResponseEntity.ok()
@@ -67,7 +74,16 @@ public class AuthController {
         }
 
         @PostMapping("/logout")
-        public ResponseEntity<?> logoutUser() {
+        public ResponseEntity<?> logoutUser(HttpServletRequest request) {
+                // Revoke the token itself, not just the cookie, so a copy of it stops working too
+                JwtPrincipal principal = jwtUtils.parse(jwtUtils.getJwtFromCookies(request));
+                if (principal != null && tokenRevocationList.revoke(principal)) {
+                        // Open code streams were authorized when they connected; end them with the token
+                        otpCodeStream.closeToken(principal.getTokenId());
+                        activityLogWriter.submit(new ActivityLog(principal.getUsername(), "LOGOUT",
+                                        "User logged out, session token revoked"));
+                }
+
                 ResponseCookie cookie = ResponseCookie.from("jwt", null)
                                 .path("/api")
                                 .maxAge(0)
@@ -0,0 +1,40 @@
+package com.chrono.auth.controller;
+
+import com.chrono.auth.config.ReplicaRoutingDataSource;
+import com.chrono.auth.dto.MessageResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/datasource")
+public class DataSourceAdminController {
+
+    // Only present when a replica is configured
+    @Autowired(required = false)
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    private boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getRoutingStats(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replicaConfigured", replicaRoutingDataSource != null);
+        if (replicaRoutingDataSource != null) {
+            stats.putAll(replicaRoutingDataSource.stats());
+        }
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -0,0 +1,52 @@
+package com.chrono.auth.controller;
+
+import com.chrono.auth.dto.MessageResponse;
+import com.chrono.auth.service.SecretReEncryptionJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/encryption")
+public class EncryptionAdminController {
+
+    @Autowired
+    private SecretReEncryptionJob secretReEncryptionJob;
+
+    private boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    @PostMapping("/reencrypt")
+    public ResponseEntity<?> startReEncryption(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        if (!secretReEncryptionJob.start()) {
+            return ResponseEntity.status(409).body(new MessageResponse("Re-encryption already running"));
+        }
+        return ResponseEntity.accepted().body(secretReEncryptionJob.status());
+    }
+
+    @PostMapping("/reencrypt/cancel")
+    public ResponseEntity<?> cancelReEncryption(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        secretReEncryptionJob.cancel();
+        return ResponseEntity.ok(secretReEncryptionJob.status());
+    }
+
+    @GetMapping("/reencrypt")
+    public ResponseEntity<?> getReEncryptionStatus(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        return ResponseEntity.ok(secretReEncryptionJob.status());
+    }
+}
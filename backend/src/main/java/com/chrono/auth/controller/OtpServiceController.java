@@ -2,28 +2,75 @@ package com.chrono.auth.controller;
 
 import com.chrono.auth.dto.MessageResponse;
 import com.chrono.auth.dto.OtpServiceDto;
+import com.chrono.auth.dto.OtpServiceSummary;
+import com.chrono.auth.dto.VerifyOtpRequest;
 import com.chrono.auth.entity.ActivityLog;
 import com.chrono.auth.entity.OtpService;
 import com.chrono.auth.entity.User;
-import com.chrono.auth.repository.ActivityLogRepository;
 import com.chrono.auth.repository.OtpServiceRepository;
+import com.chrono.auth.repository.OtpServiceRepository.ExportedSecret;
 import com.chrono.auth.repository.UserRepository;
+import com.chrono.auth.security.JwtPrincipal;
+import com.chrono.auth.service.ActivityLogWriter;
+import com.chrono.auth.service.OtpCodeStream;
+import com.chrono.auth.service.OtpServiceImporter;
+import com.chrono.auth.service.UserCache;
+import com.chrono.auth.utils.EncryptionUtil;
+import com.chrono.auth.utils.OtpAuthUri;
+import com.chrono.auth.utils.TotpCodeCache;
+import com.chrono.auth.utils.TotpParameters;
 import com.chrono.auth.utils.TotpUtils;
+import com.chrono.auth.utils.TotpVerifier;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/otp")
 public class OtpServiceController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Services named in one VIEW_OTP_BATCH entry; activity_logs.details is a 64 KB TEXT column
+    static final int MAX_AUDITED_SERVICES = 20;
+
+    // Sortable listing columns, resolved against the projection query's aliases
+    private static final Map<String, Sort> SERVICE_SORTS = Map.of(
+            "id", Sort.by("id"),
+            "serviceName", Sort.by("serviceName"),
+            "createdAt", Sort.by("createdAt"),
+            "owner", JpaSort.unsafe("u.username"));
+
     @Autowired
     private OtpServiceRepository otpServiceRepository;
 
@@ -31,89 +78,329 @@ public class OtpServiceController {
     private UserRepository userRepository;
 
     @Autowired
-    private ActivityLogRepository activityLogRepository;
+    private UserCache userCache;
+
+    @Autowired
+    private ActivityLogWriter activityLogWriter;
+
+    @Autowired
+    private OtpServiceImporter otpServiceImporter;
+
+    @Autowired
+    private TotpCodeCache totpCodeCache;
+
+    @Autowired
+    private TotpVerifier totpVerifier;
+
+    @Autowired
+    private OtpCodeStream otpCodeStream;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // The id comes from the JWT; only tokens issued before it carried one need the users table
+    private Long getCurrentUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal && principal.getUserId() != null) {
+            return principal.getUserId();
+        }
+        return userCache.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"))
+                .getId();
+    }
+
+    // Names the first services only, so an admin viewing every service writes a bounded entry
+    static String batchViewDetails(int total, List<String> named) {
+        String details = "Viewed OTPs for " + total + " services: " + String.join(", ", named);
+        return total > named.size() ? details + " and " + (total - named.size()) + " more" : details;
+    }
+
+    // "column" or "column,asc|desc"; null for anything else
+    static Sort parseSort(String sort) {
+        String[] parts = sort.split(",", -1);
+        Sort order = SERVICE_SORTS.get(parts[0]);
+        if (order == null || parts.length > 2) {
+            return null;
+        }
+        if (parts.length == 1 || parts[1].equalsIgnoreCase("asc")) {
+            return order;
+        }
+        return parts[1].equalsIgnoreCase("desc") ? order.descending() : null;
+    }
 
-    private User getCurrentUser(Authentication authentication) {
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    private String ownerName(OtpService service, Long currentUserId, Authentication authentication) {
+        Long ownerId = service.getUser().getId();
+        if (ownerId.equals(currentUserId)) {
+            return authentication.getName();
+        }
+        return userCache.findById(ownerId).map(User::getUsername).orElse("unknown");
     }
 
     @GetMapping
-    public ResponseEntity<?> getUserServices(Authentication authentication) {
-        User user = getCurrentUser(authentication);
-        List<OtpService> services;
-
-        // Admins can see ALL services
-        if ("ROLE_ADMIN".equals(user.getRole())) {
-            services = otpServiceRepository.findAll();
-        } else {
-            services = otpServiceRepository.findByUser(user);
-        }
-
-        // Exclude secret key from response for security, but include owner for Admins
-        List<Map<String, Object>> response = services.stream()
-                .map(s -> Map.of(
-                        "id", (Object) s.getId(),
-                        "serviceName", s.getServiceName(),
-                        "owner", s.getUser().getUsername(),
-                        "createdAt", s.getCreatedAt()))
-                .toList();
+    public ResponseEntity<?> getUserServices(Authentication authentication,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "id,asc") String sort) {
+        Sort order = parseSort(sort);
+        if (order == null) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Unsupported sort: " + sort));
+        }
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)),
+                order.and(Sort.by("id")));
+
+        // Admins can see ALL services; the projection never selects secret_key
+        Page<OtpServiceSummary> services = isAdmin(authentication)
+                ? otpServiceRepository.findSummaries(pageable)
+                : otpServiceRepository.findSummariesByUserId(getCurrentUserId(authentication), pageable);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", services.getContent());
+        response.put("page", services.getNumber());
+        response.put("size", services.getSize());
+        response.put("totalElements", services.getTotalElements());
+        response.put("totalPages", services.getTotalPages());
         return ResponseEntity.ok(response);
     }
 
+    // Every service as one JSON array, written row by row from a single query
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> streamAllServices(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        StreamingResponseBody body = out -> readOnly.executeWithoutResult(status -> {
+            try (Stream<OtpServiceSummary> services = otpServiceRepository.streamSummaries()) {
+                out.write('[');
+                boolean first = true;
+                for (OtpServiceSummary service : (Iterable<OtpServiceSummary>) services::iterator) {
+                    if (!first) {
+                        out.write(',');
+                    }
+                    out.write(objectMapper.writeValueAsBytes(service));
+                    first = false;
+                }
+                out.write(']');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     @PostMapping
     public ResponseEntity<?> addService(@Valid @RequestBody OtpServiceDto dto, Authentication authentication) {
         if (!TotpUtils.isValidSecret(dto.getSecretKey())) {
             return ResponseEntity.badRequest().body(new MessageResponse("Invalid Base32 secret key"));
         }
+        TotpParameters parameters;
+        try {
+            parameters = TotpParameters.of(dto.getAlgorithm(), dto.getDigits(), dto.getPeriod());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
 
-        User user = getCurrentUser(authentication);
         OtpService service = new OtpService();
-        service.setUser(user);
+        // Reference only: the insert needs the id, not the row
+        service.setUser(userRepository.getReferenceById(getCurrentUserId(authentication)));
         service.setServiceName(dto.getServiceName());
         service.setSecretKey(dto.getSecretKey().replace(" ", "").toUpperCase());
+        service.setParameters(parameters);
 
         otpServiceRepository.save(service);
-        activityLogRepository
-                .save(new ActivityLog(user.getUsername(), "ADD_SERVICE", "Added OTP service: " + dto.getServiceName()));
+        activityLogWriter.submit(new ActivityLog(authentication.getName(), "ADD_SERVICE",
+                "Added OTP service: " + dto.getServiceName()));
 
         return ResponseEntity.ok(new MessageResponse("Service added successfully"));
     }
 
+    // Body is a file of otpauth:// URIs or "serviceName,secret" lines, read as it streams in
+    @PostMapping(value = "/import", consumes = { MediaType.TEXT_PLAIN_VALUE, "text/csv",
+            MediaType.APPLICATION_OCTET_STREAM_VALUE })
+    public ResponseEntity<?> importServices(HttpServletRequest request, Authentication authentication)
+            throws IOException, InterruptedException {
+        Map<String, Object> result = otpServiceImporter.importFrom(getCurrentUserId(authentication),
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+
+        activityLogWriter.submit(new ActivityLog(authentication.getName(), "IMPORT_SERVICES",
+                "Imported " + result.get("imported") + " OTP services (" + result.get("failed") + " failed)"));
+        return ResponseEntity.ok(result);
+    }
+
+    // Backup of the caller's own services as otpauth:// URIs, one per line
+    @GetMapping(value = "/export", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportServices(Authentication authentication) {
+        Long userId = getCurrentUserId(authentication);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        StreamingResponseBody body = out -> readOnly.executeWithoutResult(status -> {
+            try (Stream<ExportedSecret> secrets = otpServiceRepository.streamSecretsByUserId(userId)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                for (ExportedSecret secret : (Iterable<ExportedSecret>) secrets::iterator) {
+                    writer.write(OtpAuthUri.format(secret.getServiceName(),
+                            EncryptionUtil.decrypt(secret.getEncryptedSecretKey()),
+                            new TotpParameters(secret.getAlgorithm(), secret.getDigits(), secret.getPeriod())));
+                    writer.write('\n');
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        activityLogWriter.submit(new ActivityLog(authentication.getName(), "EXPORT_SERVICES",
+                "Exported OTP services as otpauth:// URIs"));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"chrono-auth-export.txt\"")
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(body);
+    }
+
     @Transactional
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteService(@PathVariable Long id, Authentication authentication) {
-        User user = getCurrentUser(authentication);
+        Long userId = getCurrentUserId(authentication);
         Optional<OtpService> serviceOpt = otpServiceRepository.findById(id);
 
-        if (serviceOpt.isPresent() && serviceOpt.get().getUser().getId().equals(user.getId())) {
-            otpServiceRepository.deleteByIdAndUser(id, user);
-            activityLogRepository.save(new ActivityLog(user.getUsername(), "DELETE_SERVICE",
+        if (serviceOpt.isPresent() && serviceOpt.get().getUser().getId().equals(userId)) {
+            otpServiceRepository.deleteByIdAndUserId(id, userId);
+            totpCodeCache.evictService(id);
+            activityLogWriter.submit(new ActivityLog(authentication.getName(), "DELETE_SERVICE",
                     "Deleted OTP service: " + serviceOpt.get().getServiceName()));
             return ResponseEntity.ok(new MessageResponse("Service deleted"));
         }
         return ResponseEntity.badRequest().body(new MessageResponse("Service not found or unauthorized"));
     }
 
+    @GetMapping("/tokens")
+    public ResponseEntity<?> getOtpTokens(Authentication authentication) {
+        boolean isAdmin = isAdmin(authentication);
+
+        // Admins can see ALL services; owners are fetched in the same query
+        List<OtpService> services = isAdmin
+                ? otpServiceRepository.findAllWithUser()
+                : otpServiceRepository.findByUserId(getCurrentUserId(authentication));
+
+        // Cache misses are generated as one parallel batch
+        List<TotpCodeCache.Codes> codes = totpCodeCache.getCodes(services);
+
+        List<Map<String, Object>> response = new ArrayList<>(services.size());
+        List<String> viewed = new ArrayList<>(Math.min(services.size(), MAX_AUDITED_SERVICES));
+        for (int i = 0; i < services.size(); i++) {
+            OtpService service = services.get(i);
+            String owner = isAdmin ? service.getUser().getUsername() : authentication.getName();
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", service.getId());
+            entry.put("serviceName", service.getServiceName());
+            entry.put("owner", owner);
+            entry.put("code", codes.get(i).code());
+            entry.put("validUntil", codes.get(i).validUntil());
+            entry.put("nextCode", codes.get(i).nextCode());
+            entry.put("period", service.getPeriod());
+            response.add(entry);
+
+            if (i < MAX_AUDITED_SERVICES) {
+                viewed.add(service.getServiceName() + " (Owner: " + owner + ")");
+            }
+        }
+
+        // One aggregated audit entry for the whole batch
+        if (!services.isEmpty()) {
+            activityLogWriter.submit(new ActivityLog(authentication.getName(), "VIEW_OTP_BATCH",
+                    batchViewDetails(services.size(), viewed)));
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
+    // Pushes the same codes as /tokens once per time step instead of being polled
+    @GetMapping("/stream")
+    public ResponseEntity<SseEmitter> streamOtpTokens(Authentication authentication) {
+        String tokenId = authentication.getPrincipal() instanceof JwtPrincipal principal ? principal.getTokenId() : null;
+        SseEmitter emitter = otpCodeStream.subscribe(getCurrentUserId(authentication), tokenId,
+                isAdmin(authentication));
+        if (emitter == null) {
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+
+        activityLogWriter.submit(new ActivityLog(authentication.getName(), "VIEW_OTP_STREAM",
+                "Subscribed to live OTP codes"));
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
     @GetMapping("/{id}/token")
     public ResponseEntity<?> getOtpToken(@PathVariable Long id, Authentication authentication) {
-        User user = getCurrentUser(authentication);
+        Long userId = getCurrentUserId(authentication);
         Optional<OtpService> serviceOpt = otpServiceRepository.findById(id);
 
         if (serviceOpt.isPresent()) {
             OtpService service = serviceOpt.get();
             // Check authorization: Must be owner OR an Admin
-            if (service.getUser().getId().equals(user.getId()) || "ROLE_ADMIN".equals(user.getRole())) {
-                String code = TotpUtils.getTOTPCode(service.getSecretKey());
+            if (service.getUser().getId().equals(userId) || isAdmin(authentication)) {
+                String code = totpCodeCache.getCode(service.getId(), service.getEncryptedSecretKey(),
+                        service.parameters());
 
                 // Log activity
-                activityLogRepository.save(new ActivityLog(user.getUsername(), "VIEW_OTP", "Viewed OTP for service: "
-                        + service.getServiceName() + " (Owner: " + service.getUser().getUsername() + ")"));
+                activityLogWriter.submit(new ActivityLog(authentication.getName(), "VIEW_OTP", "Viewed OTP for service: "
+                        + service.getServiceName() + " (Owner: " + ownerName(service, userId, authentication) + ")"));
 
                 return ResponseEntity.ok(Map.of("code", code, "serviceName", service.getServiceName()));
             }
         }
         return ResponseEntity.badRequest().body(new MessageResponse("Service not found or unauthorized"));
     }
+
+    @PostMapping("/{id}/verify")
+    public ResponseEntity<?> verifyOtp(@PathVariable Long id, @Valid @RequestBody VerifyOtpRequest request,
+            Authentication authentication) {
+        Long userId = getCurrentUserId(authentication);
+        Optional<OtpService> serviceOpt = otpServiceRepository.findById(id);
+
+        if (serviceOpt.isPresent()) {
+            OtpService service = serviceOpt.get();
+            // Check authorization: Must be owner OR an Admin
+            if (service.getUser().getId().equals(userId) || isAdmin(authentication)) {
+                TotpVerifier.Result result = totpVerifier.verify(service.getId(), service.getEncryptedSecretKey(),
+                        service.parameters(), request.getCode());
+
+                activityLogWriter.submit(new ActivityLog(authentication.getName(), "VERIFY_OTP",
+                        "Verified OTP for service: " + service.getServiceName() + " - Result: " + result));
+
+                return ResponseEntity.ok(Map.of("valid", result == TotpVerifier.Result.VALID,
+                        "result", result.name()));
+            }
+        }
+        return ResponseEntity.badRequest().body(new MessageResponse("Service not found or unauthorized"));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        return ResponseEntity.ok(totpCodeCache.stats());
+    }
+
+    @GetMapping("/stream/stats")
+    public ResponseEntity<?> getStreamStats(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        return ResponseEntity.ok(otpCodeStream.stats());
+    }
 }
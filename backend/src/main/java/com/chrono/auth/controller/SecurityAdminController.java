@@ -0,0 +1,43 @@
+package com.chrono.auth.controller;
+
+import com.chrono.auth.dto.MessageResponse;
+import com.chrono.auth.security.LoginRateLimitFilter;
+import com.chrono.auth.security.TokenRevocationList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/security")
+public class SecurityAdminController {
+
+    @Autowired
+    private LoginRateLimitFilter loginRateLimitFilter;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    private boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    @GetMapping("/login-limiter")
+    public ResponseEntity<?> getLoginLimiterStats(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        return ResponseEntity.ok(loginRateLimitFilter.stats());
+    }
+
+    @GetMapping("/revocations")
+    public ResponseEntity<?> getRevocationStats(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        return ResponseEntity.ok(tokenRevocationList.stats());
+    }
+}
@@ -0,0 +1,31 @@
+package com.chrono.auth.controller;
+
+import com.chrono.auth.dto.MessageResponse;
+import com.chrono.auth.service.StartupReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/startup")
+public class StartupAdminController {
+
+    @Autowired
+    private StartupReport startupReport;
+
+    private boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getStartupReport(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        return ResponseEntity.ok(startupReport.report());
+    }
+}
@@ -0,0 +1,42 @@
+package com.chrono.auth.controller;
+
+import com.chrono.auth.dto.MessageResponse;
+import com.chrono.auth.service.UserCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/users")
+public class UserAdminController {
+
+    @Autowired
+    private UserCache userCache;
+
+    private boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        return ResponseEntity.ok(userCache.stats());
+    }
+
+    // For role changes made directly in the database: a demoted admin loses admin access on the next request
+    @DeleteMapping("/cache")
+    public ResponseEntity<?> clearCache(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Admin access required"));
+        }
+        userCache.clear();
+        return ResponseEntity.ok(new MessageResponse("User cache cleared"));
+    }
+}
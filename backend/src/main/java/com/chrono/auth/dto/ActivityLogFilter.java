@@ -0,0 +1,56 @@
+package com.chrono.auth.dto;
+
+import java.time.LocalDateTime;
+
+public class ActivityLogFilter {
+
+    private String username;
+
+    private String action;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    public ActivityLogFilter() {
+    }
+
+    public ActivityLogFilter(String username, String action, LocalDateTime from, LocalDateTime to) {
+        this.username = username;
+        this.action = action;
+        this.from = from;
+        this.to = to;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+}
@@ -10,6 +10,13 @@ public class OtpServiceDto {
     @NotBlank
     private String secretKey;
 
+    // Optional; missing values default to HMAC-SHA1, 6 digits, 30 seconds
+    private String algorithm;
+
+    private Integer digits;
+
+    private Integer period;
+
     public String getServiceName() {
         return serviceName;
     }
@@ -25,4 +32,28 @@ public class OtpServiceDto {
     public void setSecretKey(String secretKey) {
         this.secretKey = secretKey;
     }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public Integer getDigits() {
+        return digits;
+    }
+
+    public void setDigits(Integer digits) {
+        this.digits = digits;
+    }
+
+    public Integer getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(Integer period) {
+        this.period = period;
+    }
 }
@@ -0,0 +1,38 @@
+package com.chrono.auth.dto;
+
+import java.time.LocalDateTime;
+
+// Listing row built directly by JPQL; never carries the secret
+public class OtpServiceSummary {
+
+    private final Long id;
+
+    private final String serviceName;
+
+    private final String owner;
+
+    private final LocalDateTime createdAt;
+
+    public OtpServiceSummary(Long id, String serviceName, String owner, LocalDateTime createdAt) {
+        this.id = id;
+        this.serviceName = serviceName;
+        this.owner = owner;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,40 @@
+package com.chrono.auth.dto;
+
+import com.chrono.auth.entity.ActivityLog;
+
+import java.time.LocalDateTime;
+
+// Row of /api/logs/recent. No id: entries recorded in memory only get one when the batched insert runs
+public class RecentActivity {
+
+    private final String username;
+
+    private final String action;
+
+    private final String details;
+
+    private final LocalDateTime timestamp;
+
+    public RecentActivity(ActivityLog log) {
+        this.username = log.getUsername();
+        this.action = log.getAction();
+        this.details = log.getDetails();
+        this.timestamp = log.getTimestamp();
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,17 @@
+package com.chrono.auth.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class VerifyOtpRequest {
+
+    @NotBlank
+    private String code;
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+}
@@ -1,11 +1,15 @@
 package com.chrono.auth.entity;
 
+import com.chrono.auth.utils.EncryptionUtil;
+import com.chrono.auth.utils.TotpAlgorithm;
+import com.chrono.auth.utils.TotpParameters;
+import com.chrono.auth.utils.TotpSecret;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "otp_services")
-public class OtpService {
+public class OtpService implements TotpSecret {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -18,9 +22,19 @@ public class OtpService {
     @Column(name = "service_name", nullable = false, length = 100)
     private String serviceName;
 
+    // Kept encrypted in memory; decrypted only when a secret is actually used
     @Column(name = "secret_key", nullable = false)
-    @Convert(converter = com.chrono.auth.utils.SecretKeyConverter.class)
-    private String secretKey;
+    private String encryptedSecretKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "algorithm", nullable = false, length = 10)
+    private TotpAlgorithm algorithm = TotpParameters.DEFAULT.algorithm();
+
+    @Column(name = "digits", nullable = false)
+    private int digits = TotpParameters.DEFAULT.digits();
+
+    @Column(name = "period_seconds", nullable = false)
+    private int period = TotpParameters.DEFAULT.period();
 
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
@@ -54,11 +68,40 @@ public class OtpService {
     }
 
     public String getSecretKey() {
-        return secretKey;
+        return EncryptionUtil.decrypt(encryptedSecretKey);
     }
 
     public void setSecretKey(String secretKey) {
-        this.secretKey = secretKey;
+        this.encryptedSecretKey = EncryptionUtil.encrypt(secretKey);
+    }
+
+    public String getEncryptedSecretKey() {
+        return encryptedSecretKey;
+    }
+
+    public void setEncryptedSecretKey(String encryptedSecretKey) {
+        this.encryptedSecretKey = encryptedSecretKey;
+    }
+
+    @Override
+    public TotpAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public int getDigits() {
+        return digits;
+    }
+
+    @Override
+    public int getPeriod() {
+        return period;
+    }
+
+    public void setParameters(TotpParameters parameters) {
+        this.algorithm = parameters.algorithm();
+        this.digits = parameters.digits();
+        this.period = parameters.period();
     }
 
     public LocalDateTime getCreatedAt() {
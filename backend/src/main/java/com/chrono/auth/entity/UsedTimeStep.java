@@ -0,0 +1,82 @@
+package com.chrono.auth.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * An accepted code, identified by its service and the epoch second at which
+ * it leaves the drift window.
+ */
+@Entity
+@Table(name = "otp_used_steps")
+@IdClass(UsedTimeStep.Key.class)
+public class UsedTimeStep {
+
+    @Id
+    @Column(name = "service_id")
+    private Long serviceId;
+
+    @Id
+    @Column(name = "valid_until")
+    private Long validUntil;
+
+    @Column(name = "used_at", nullable = false, updatable = false)
+    private LocalDateTime usedAt = LocalDateTime.now();
+
+    public UsedTimeStep() {
+    }
+
+    // Getters and Setters
+    public Long getServiceId() {
+        return serviceId;
+    }
+
+    public void setServiceId(Long serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public Long getValidUntil() {
+        return validUntil;
+    }
+
+    public void setValidUntil(Long validUntil) {
+        this.validUntil = validUntil;
+    }
+
+    public LocalDateTime getUsedAt() {
+        return usedAt;
+    }
+
+    public void setUsedAt(LocalDateTime usedAt) {
+        this.usedAt = usedAt;
+    }
+
+    public static class Key implements Serializable {
+        private Long serviceId;
+        private Long validUntil;
+
+        public Key() {
+        }
+
+        public Key(Long serviceId, Long validUntil) {
+            this.serviceId = serviceId;
+            this.validUntil = validUntil;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key other))
+                return false;
+            return Objects.equals(serviceId, other.serviceId) && Objects.equals(validUntil, other.validUntil);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serviceId, validUntil);
+        }
+    }
+}
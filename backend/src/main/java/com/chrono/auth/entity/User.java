@@ -1,10 +1,12 @@
 package com.chrono.auth.entity;
 
+import com.chrono.auth.service.UserCacheInvalidator;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheInvalidator.class)
 public class User {
 
     @Id
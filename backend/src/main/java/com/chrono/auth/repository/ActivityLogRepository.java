@@ -2,10 +2,9 @@ package com.chrono.auth.repository;
 
 import com.chrono.auth.entity.ActivityLog;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.List;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long> {
-    List<ActivityLog> findByUsernameOrderByTimestampDesc(String username);
-
-    List<ActivityLog> findAllByOrderByTimestampDesc();
+// Queries run read-only, so they can be served by the replica when one is configured
+@Transactional(readOnly = true)
+public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long>, ActivityLogRepositoryCustom {
 }
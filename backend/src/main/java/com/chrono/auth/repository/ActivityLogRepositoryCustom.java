@@ -0,0 +1,26 @@
+package com.chrono.auth.repository;
+
+import com.chrono.auth.dto.ActivityLogFilter;
+import com.chrono.auth.entity.ActivityLog;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Read-only like the rest of ActivityLogRepository; the annotation there does not reach fragment methods
+@Transactional(readOnly = true)
+public interface ActivityLogRepositoryCustom {
+
+    /**
+     * Newest-first page strictly after the (timestamp, id) keyset cursor; a null
+     * cursor starts from the newest entry.
+     */
+    List<ActivityLog> findPage(ActivityLogFilter filter, LocalDateTime beforeTimestamp, Long beforeId, int limit);
+
+    /**
+     * Newest-first stream of read-only rows fetched fetchSize at a time. Must be
+     * consumed inside a transaction; callers detach rows once written.
+     */
+    Stream<ActivityLog> streamAll(ActivityLogFilter filter, int fetchSize);
+}
@@ -0,0 +1,78 @@
+package com.chrono.auth.repository;
+
+import com.chrono.auth.dto.ActivityLogFilter;
+import com.chrono.auth.entity.ActivityLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Criteria queries so only the filters actually given end up in the WHERE clause
+public class ActivityLogRepositoryImpl implements ActivityLogRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ActivityLog> findPage(ActivityLogFilter filter, LocalDateTime beforeTimestamp, Long beforeId,
+            int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ActivityLog> query = cb.createQuery(ActivityLog.class);
+        Root<ActivityLog> log = query.from(ActivityLog.class);
+
+        List<Predicate> predicates = filterPredicates(cb, log, filter);
+        if (beforeTimestamp != null && beforeId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(log.get("timestamp"), beforeTimestamp),
+                    cb.and(cb.equal(log.get("timestamp"), beforeTimestamp), cb.lessThan(log.get("id"), beforeId))));
+        }
+
+        query.select(log)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(log.get("timestamp")), cb.desc(log.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<ActivityLog> streamAll(ActivityLogFilter filter, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ActivityLog> query = cb.createQuery(ActivityLog.class);
+        Root<ActivityLog> log = query.from(ActivityLog.class);
+
+        query.select(log)
+                .where(filterPredicates(cb, log, filter).toArray(new Predicate[0]))
+                .orderBy(cb.desc(log.get("timestamp")), cb.desc(log.get("id")));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private static List<Predicate> filterPredicates(CriteriaBuilder cb, Root<ActivityLog> log,
+            ActivityLogFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getUsername() != null) {
+            predicates.add(cb.equal(log.get("username"), filter.getUsername()));
+        }
+        if (filter.getAction() != null) {
+            predicates.add(cb.equal(log.get("action"), filter.getAction()));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(log.get("timestamp"), filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(log.get("timestamp"), filter.getTo()));
+        }
+        return predicates;
+    }
+}
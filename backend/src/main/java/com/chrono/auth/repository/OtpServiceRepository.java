@@ -1,12 +1,104 @@
 package com.chrono.auth.repository;
 
+import com.chrono.auth.dto.OtpServiceSummary;
 import com.chrono.auth.entity.OtpService;
 import com.chrono.auth.entity.User;
+import com.chrono.auth.utils.TotpAlgorithm;
+import com.chrono.auth.utils.TotpSecret;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+// Queries run read-only, so they can be served by the replica when one is configured
+@Transactional(readOnly = true)
 public interface OtpServiceRepository extends JpaRepository<OtpService, Long> {
     List<OtpService> findByUser(User user);
 
+    List<OtpService> findByUserId(Long userId);
+
+    @Query("SELECT s FROM OtpService s JOIN FETCH s.user")
+    List<OtpService> findAllWithUser();
+
+    @Transactional
     void deleteByIdAndUser(Long id, User user);
+
+    // Listing projections: owner name joined in, secret_key never selected
+    @Query(value = "SELECT new com.chrono.auth.dto.OtpServiceSummary(s.id, s.serviceName, u.username, s.createdAt) "
+            + "FROM OtpService s JOIN s.user u",
+            countQuery = "SELECT COUNT(s) FROM OtpService s")
+    Page<OtpServiceSummary> findSummaries(Pageable pageable);
+
+    @Query(value = "SELECT new com.chrono.auth.dto.OtpServiceSummary(s.id, s.serviceName, u.username, s.createdAt) "
+            + "FROM OtpService s JOIN s.user u WHERE u.id = :userId",
+            countQuery = "SELECT COUNT(s) FROM OtpService s WHERE s.user.id = :userId")
+    Page<OtpServiceSummary> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.chrono.auth.dto.OtpServiceSummary(s.id, s.serviceName, u.username, s.createdAt) "
+            + "FROM OtpService s JOIN s.user u ORDER BY s.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    Stream<OtpServiceSummary> streamSummaries();
+
+    @Transactional
+    void deleteByIdAndUserId(Long id, Long userId);
+
+    // Backup export: names and ciphertexts only, streamed in fetch-size chunks
+    @Query("SELECT s.serviceName AS serviceName, s.encryptedSecretKey AS encryptedSecretKey, "
+            + "s.algorithm AS algorithm, s.digits AS digits, s.period AS period FROM OtpService s "
+            + "WHERE s.user.id = :userId ORDER BY s.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    Stream<ExportedSecret> streamSecretsByUserId(@Param("userId") Long userId);
+
+    // Keyset page over raw ciphertexts for background re-encryption
+    @Query("SELECT s.id AS id, s.encryptedSecretKey AS encryptedSecretKey FROM OtpService s WHERE s.id > :afterId ORDER BY s.id")
+    List<EncryptedSecret> findEncryptedSecretsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Code stream: one query per time step for every subscribed owner
+    @Query("SELECT s.id AS id, s.serviceName AS serviceName, u.id AS userId, u.username AS owner, "
+            + "s.encryptedSecretKey AS encryptedSecretKey, s.algorithm AS algorithm, s.digits AS digits, "
+            + "s.period AS period FROM OtpService s JOIN s.user u WHERE u.id IN :userIds ORDER BY s.serviceName")
+    List<StreamedService> findStreamedServicesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT s.id AS id, s.serviceName AS serviceName, u.id AS userId, u.username AS owner, "
+            + "s.encryptedSecretKey AS encryptedSecretKey, s.algorithm AS algorithm, s.digits AS digits, "
+            + "s.period AS period FROM OtpService s JOIN s.user u ORDER BY s.serviceName")
+    List<StreamedService> findAllStreamedServices();
+
+    interface ExportedSecret {
+        String getServiceName();
+
+        String getEncryptedSecretKey();
+
+        TotpAlgorithm getAlgorithm();
+
+        int getDigits();
+
+        int getPeriod();
+    }
+
+    interface EncryptedSecret {
+        Long getId();
+
+        String getEncryptedSecretKey();
+    }
+
+    interface StreamedService extends TotpSecret {
+        String getServiceName();
+
+        Long getUserId();
+
+        String getOwner();
+    }
 }
@@ -0,0 +1,39 @@
+package com.chrono.auth.repository;
+
+import com.chrono.auth.entity.RevokedToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    // Plain INSERT so revoking a token twice fails on the jti key instead of merging
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO revoked_tokens (jti, expires_at, revoked_at) VALUES (:jti, :expiresAt, CURRENT_TIMESTAMP)", nativeQuery = true)
+    void insert(@Param("jti") String tokenId, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Change feed: rows past the last id a replica has applied, oldest first
+    @Query("SELECT r.id AS id, r.tokenId AS tokenId, r.expiresAt AS expiresAt FROM RevokedToken r "
+            + "WHERE r.id > :afterId ORDER BY r.id")
+    List<Revocation> findChangesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    interface Revocation {
+        Long getId();
+
+        String getTokenId();
+
+        LocalDateTime getExpiresAt();
+    }
+}
@@ -0,0 +1,22 @@
+package com.chrono.auth.repository;
+
+import com.chrono.auth.entity.UsedTimeStep;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface UsedTimeStepRepository extends JpaRepository<UsedTimeStep, UsedTimeStep.Key> {
+
+    // Plain INSERT so a duplicate (service, valid_until) fails on the primary key instead of merging
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO otp_used_steps (service_id, valid_until, used_at) VALUES (:serviceId, :validUntil, CURRENT_TIMESTAMP)", nativeQuery = true)
+    void insert(@Param("serviceId") long serviceId, @Param("validUntil") long validUntil);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UsedTimeStep u WHERE u.validUntil < :epochSecond")
+    int deleteByValidUntilBefore(@Param("epochSecond") long epochSecond);
+}
@@ -5,5 +5,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Not read-only: first login looks the user up and inserts it if missing, which must see the primary
     Optional<User> findByUsername(String username);
 }
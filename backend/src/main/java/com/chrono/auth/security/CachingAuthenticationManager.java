@@ -0,0 +1,90 @@
+package com.chrono.auth.security;
+
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers successful authentications for a short TTL so retry storms and
+ * scripted logins do not each cost a directory bind.
+ *
+ * Entries are keyed by username and hold an HMAC of the password under a
+ * random per-process salt, never the password itself. A different password
+ * always goes to the delegate, and failures are never cached.
+ */
+public class CachingAuthenticationManager implements AuthenticationManager {
+
+    private final AuthenticationManager delegate;
+
+    private final Clock clock;
+
+    private final long ttlMillis;
+
+    private final int maxEntries;
+
+    private final byte[] salt = new byte[32];
+
+    private final ConcurrentHashMap<String, Entry> successes = new ConcurrentHashMap<>();
+
+    public CachingAuthenticationManager(AuthenticationManager delegate, Clock clock, long ttlMillis, int maxEntries) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (username == null || credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        byte[] passwordHash = hash(username, credentials.toString());
+        long now = clock.millis();
+        Entry cached = successes.get(username);
+        if (cached != null && cached.expiresAtMillis > now && MessageDigest.isEqual(cached.passwordHash, passwordHash)) {
+            return cached.result;
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (successes.size() >= maxEntries) {
+            successes.values().removeIf(entry -> entry.expiresAtMillis <= now);
+            if (successes.size() >= maxEntries) {
+                successes.clear();
+            }
+        }
+        successes.put(username, new Entry(passwordHash, now + ttlMillis, result));
+        return result;
+    }
+
+    public void evict(String username) {
+        successes.remove(username);
+    }
+
+    private byte[] hash(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(salt, "HmacSHA256"));
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(byte[] passwordHash, long expiresAtMillis, Authentication result) {
+    }
+}
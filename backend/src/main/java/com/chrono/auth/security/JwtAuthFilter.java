@@ -1,9 +1,16 @@
 package com.chrono.auth.security;
 
+import com.chrono.auth.entity.User;
+import com.chrono.auth.service.UserCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,37 +21,79 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
-public class JwtAuthFilter extends OncePerRequestFilter {
+public class JwtAuthFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthFilter.class);
 
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private UserCache userCache;
+
+    private static final String ADMIN_ROLE = "ROLE_ADMIN";
+
+    private final LongAdder errors = new LongAdder();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("chrono.jwt.filter.errors", errors, LongAdder::sum)
+                .description("Requests left unauthenticated because building the authentication failed")
+                .register(registry);
+    }
+
+    // Streamed responses (SSE, exports) complete on an async dispatch that is authorized again
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
             String jwt = jwtUtils.getJwtFromCookies(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                String role = jwtUtils.getUserRoleFromJwtToken(jwt);
-
+            JwtPrincipal principal = jwtUtils.parse(jwt);
+            // Revoked tokens (logged out) are treated like any other invalid token
+            if (principal != null && !tokenRevocationList.isRevoked(principal)) {
                 List<org.springframework.security.core.GrantedAuthority> authorities = new ArrayList<>();
+                String role = principal.getRole();
+                if (ADMIN_ROLE.equals(role)) {
+                    role = currentRole(principal);
+                }
                 if (role != null) {
                     authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority(role));
                 }
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        username, null, authorities);
+                        principal, null, authorities);
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         } catch (Exception e) {
-            // Cannot set user authentication
+            // Cannot set user authentication; the request continues anonymously
+            errors.increment();
+            log.debug("Request to {} left unauthenticated: {}: {}", request.getRequestURI(),
+                    e.getClass().getName(), e.getMessage());
         }
 
         filterChain.doFilter(request, response);
     }
+
+    // The role claim is fixed for the token's lifetime; admin rights are confirmed against the users
+    // table (through the cache) so a demotion applies within the cache TTL instead of at token expiry
+    private String currentRole(JwtPrincipal principal) {
+        Optional<User> user = principal.getUserId() != null
+                ? userCache.findById(principal.getUserId())
+                : userCache.findByUsername(principal.getUsername());
+        return user.map(User::getRole).orElse(null);
+    }
 }
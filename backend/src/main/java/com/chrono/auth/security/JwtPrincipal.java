@@ -0,0 +1,69 @@
+package com.chrono.auth.security;
+
+import java.security.Principal;
+
+/**
+ * Verified contents of a JWT, produced once per token by {@link JwtUtils#parse(String)}.
+ * Used as the authentication principal, so controllers can read the user id
+ * without a users-table lookup.
+ */
+public final class JwtPrincipal implements Principal {
+
+    private final String username;
+
+    private final Long userId;
+
+    private final String role;
+
+    private final long expiresAtMillis;
+
+    private final String tokenId;
+
+    public JwtPrincipal(String username, Long userId, String role, long expiresAtMillis) {
+        this(username, userId, role, expiresAtMillis, null);
+    }
+
+    public JwtPrincipal(String username, Long userId, String role, long expiresAtMillis, String tokenId) {
+        this.username = username;
+        this.userId = userId;
+        this.role = role;
+        this.expiresAtMillis = expiresAtMillis;
+        this.tokenId = tokenId;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * @return the users.id claim, or null for tokens issued before it was added
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * @return the jti claim, or null for tokens issued before it was added
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
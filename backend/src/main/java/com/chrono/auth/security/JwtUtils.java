@@ -1,17 +1,38 @@
 package com.chrono.auth.security;
 
+import com.chrono.auth.utils.InstancePool;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
 import java.util.Date;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
-public class JwtUtils {
+public class JwtUtils implements MeterBinder {
 
     @Value("${app.jwt.secret}")
     private String jwtSecret;
@@ -19,8 +40,60 @@ public class JwtUtils {
     @Value("${app.jwt.expirationMs}")
     private int jwtExpirationMs;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    @Value("${app.jwt.cache.max-entries:10000}")
+    private int maxCachedTokens = 10000;
+
+    @Autowired
+    private Clock clock = Clock.systemUTC();
+
+    private SecretKey signingKey;
+
+    private JwtParser jwtParser;
+
+    // Verified tokens by SHA-256 digest, so a repeated cookie skips signature checks
+    private final ConcurrentHashMap<TokenDigest, JwtPrincipal> verifiedTokens = new ConcurrentHashMap<>();
+
+    private enum FailureReason {
+        EXPIRED, SIGNATURE, MALFORMED, UNSUPPORTED, OTHER
+    }
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder[] failures = newAdders(FailureReason.values().length);
+
+    private volatile Timer verifiedTimer;
+
+    private volatile Timer rejectedTimer;
+
+    private static final InstancePool<MessageDigest> SHA_256 = new InstancePool<>(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .clock(() -> new Date(clock.millis()))
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        verifiedTimer = Timer.builder("chrono.jwt.verify").tag("result", "valid")
+                .description("Signature and claims verification of tokens not seen before").register(registry);
+        rejectedTimer = Timer.builder("chrono.jwt.verify").tag("result", "invalid")
+                .description("Signature and claims verification of tokens not seen before").register(registry);
+        FunctionCounter.builder("chrono.jwt.cache.hits", cacheHits, LongAdder::sum)
+                .description("Tokens answered from the verified-token cache").register(registry);
+        for (FailureReason reason : FailureReason.values()) {
+            FunctionCounter.builder("chrono.jwt.failures", failures[reason.ordinal()], LongAdder::sum)
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT)).register(registry);
+        }
     }
 
     public String getJwtFromCookies(HttpServletRequest request) {
@@ -36,39 +109,133 @@ public class JwtUtils {
     }
 
     public String generateJwtToken(String username, String role) {
+        return generateJwtToken(username, null, role);
+    }
+
+    public String generateJwtToken(String username, Long userId, String role) {
+        long now = clock.millis();
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
+                .claim("uid", userId)
                 .claim("role", role)
-                .issuedAt(new Date())
-                .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + jwtExpirationMs))
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * Verifies the token once and returns its principal, or null if it is
+     * invalid or expired. Tokens seen before are answered from memory until
+     * their own expiry.
+     */
+    public JwtPrincipal parse(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        long now = clock.millis();
+        TokenDigest digest = TokenDigest.of(token);
+        JwtPrincipal cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (cached.getExpiresAtMillis() > now) {
+                cacheHits.increment();
+                return cached;
+            }
+            verifiedTokens.remove(digest, cached);
+            failures[FailureReason.EXPIRED.ordinal()].increment();
+            return null;
+        }
+
+        JwtPrincipal principal;
+        long start = System.nanoTime();
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            Date expiration = claims.getExpiration();
+            principal = new JwtPrincipal(claims.getSubject(), claims.get("uid", Long.class),
+                    claims.get("role", String.class), expiration != null ? expiration.getTime() : now + jwtExpirationMs,
+                    claims.getId());
+        } catch (Exception e) {
+            failures[reasonFor(e).ordinal()].increment();
+            record(rejectedTimer, start);
+            return null;
+        }
+        record(verifiedTimer, start);
+
+        if (verifiedTokens.size() >= maxCachedTokens) {
+            evictExpired(now);
+            if (verifiedTokens.size() >= maxCachedTokens) {
+                // Cheap bound: still-valid tokens are verified again on their next use
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(digest, principal);
+        return principal;
+    }
+
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        JwtPrincipal principal = parse(token);
+        return principal != null ? principal.getUsername() : null;
     }
 
     public String getUserRoleFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get("role", String.class);
+        JwtPrincipal principal = parse(token);
+        return principal != null ? principal.getRole() : null;
     }
 
     public boolean validateJwtToken(String authToken) {
-        try {
-            Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(authToken);
-            return true;
-        } catch (Exception e) {
-            return false;
+        return parse(authToken) != null;
+    }
+
+    private static FailureReason reasonFor(Exception e) {
+        if (e instanceof ExpiredJwtException) {
+            return FailureReason.EXPIRED;
+        } else if (e instanceof SecurityException) {
+            return FailureReason.SIGNATURE;
+        } else if (e instanceof MalformedJwtException) {
+            return FailureReason.MALFORMED;
+        } else if (e instanceof UnsupportedJwtException) {
+            return FailureReason.UNSUPPORTED;
+        }
+        return FailureReason.OTHER;
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void evictExpired(long now) {
+        verifiedTokens.values().removeIf(principal -> principal.getExpiresAtMillis() <= now);
+    }
+
+    private record TokenDigest(long high, long low) {
+
+        private static TokenDigest of(String token) {
+            MessageDigest sha256 = SHA_256.acquire();
+            byte[] hash;
+            try {
+                hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            } finally {
+                SHA_256.release(sha256);
+            }
+            long high = 0;
+            long low = 0;
+            for (int i = 0; i < 8; i++) {
+                high = (high << 8) | (hash[i] & 0xff);
+                low = (low << 8) | (hash[i + 8] & 0xff);
+            }
+            return new TokenDigest(high, low);
         }
     }
 }
@@ -0,0 +1,107 @@
+package com.chrono.auth.security;
+
+import com.unboundid.ldap.sdk.BindRequest;
+import com.unboundid.ldap.sdk.GetEntryLDAPConnectionPoolHealthCheck;
+import com.unboundid.ldap.sdk.LDAPConnectionOptions;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.RoundRobinServerSet;
+import com.unboundid.ldap.sdk.ServerSet;
+import com.unboundid.ldap.sdk.SimpleBindRequest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLSocketFactory;
+import java.net.URI;
+
+/**
+ * Connection pool for LDAP logins. User binds run on pooled connections via
+ * {@link LDAPConnectionPool#bindAndRevertAuthentication}, so a login costs one
+ * bind round trip instead of a TCP (and TLS) handshake plus a bind.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.auth-method", havingValue = "ldap")
+public class LdapPoolConfig {
+
+    @Value("${spring.ldap.urls}")
+    private String[] urls;
+
+    @Value("${spring.ldap.username:}")
+    private String bindDn;
+
+    @Value("${spring.ldap.password:}")
+    private String bindPassword;
+
+    @Value("${app.ldap.pool.initial-size:2}")
+    private int initialSize;
+
+    @Value("${app.ldap.pool.max-size:10}")
+    private int maxSize;
+
+    @Value("${app.ldap.pool.max-wait-ms:2000}")
+    private long maxWaitMillis;
+
+    @Value("${app.ldap.pool.timeout-ms:5000}")
+    private int timeoutMillis;
+
+    @Value("${app.ldap.pool.health-check-interval-ms:30000}")
+    private long healthCheckIntervalMillis;
+
+    @Value("${app.ldap.pool.validate-on-checkout:false}")
+    private boolean validateOnCheckout;
+
+    @Bean(destroyMethod = "close")
+    public LDAPConnectionPool ldapConnectionPool() throws LDAPException {
+        LDAPConnectionOptions options = new LDAPConnectionOptions();
+        options.setConnectTimeoutMillis(timeoutMillis);
+        options.setResponseTimeoutMillis(timeoutMillis);
+
+        String[] hosts = new String[urls.length];
+        int[] ports = new int[urls.length];
+        SocketFactory socketFactory = null;
+        for (int i = 0; i < urls.length; i++) {
+            URI uri = URI.create(urls[i].trim());
+            boolean secure = "ldaps".equalsIgnoreCase(uri.getScheme());
+            hosts[i] = uri.getHost();
+            ports[i] = uri.getPort() > 0 ? uri.getPort() : (secure ? 636 : 389);
+            if (secure) {
+                socketFactory = SSLSocketFactory.getDefault();
+            }
+        }
+        ServerSet servers = new RoundRobinServerSet(hosts, ports, socketFactory, options);
+        BindRequest poolBind = bindDn.isEmpty() ? null : new SimpleBindRequest(bindDn, bindPassword);
+
+        // Do not fail startup if the directory is down; connections are created on demand
+        LDAPConnectionPool pool = new LDAPConnectionPool(servers, poolBind, initialSize, maxSize, null, false);
+        pool.setConnectionPoolName("chrono-auth-ldap");
+        // Bounded: when every connection is busy, logins wait up to max-wait-ms and then fail
+        pool.setCreateIfNecessary(false);
+        pool.setMaxWaitTimeMillis(maxWaitMillis);
+        pool.setHealthCheck(new GetEntryLDAPConnectionPoolHealthCheck("", timeoutMillis,
+                false, false, validateOnCheckout, false, true, true));
+        pool.setHealthCheckIntervalMillis(healthCheckIntervalMillis);
+        return pool;
+    }
+
+    @Bean
+    public MeterBinder ldapConnectionPoolMetrics(LDAPConnectionPool pool) {
+        return registry -> {
+            Gauge.builder("chrono.ldap.pool.connections", pool, LDAPConnectionPool::getCurrentAvailableConnections)
+                    .tag("state", "available").register(registry);
+            Gauge.builder("chrono.ldap.pool.connections", pool, LDAPConnectionPool::getMaximumAvailableConnections)
+                    .tag("state", "max").register(registry);
+            FunctionCounter.builder("chrono.ldap.pool.checkouts", pool,
+                    p -> p.getConnectionPoolStatistics().getNumSuccessfulCheckoutsAfterWaiting())
+                    .tag("result", "waited").register(registry);
+            FunctionCounter.builder("chrono.ldap.pool.checkouts", pool,
+                    p -> p.getConnectionPoolStatistics().getNumFailedCheckouts())
+                    .tag("result", "failed").register(registry);
+        };
+    }
+}
@@ -0,0 +1,208 @@
+package com.chrono.auth.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throttles POST /api/auth/login per client IP and per username before the
+ * request reaches Spring Security, LDAP or the database. Rejected attempts
+ * get 429 with Retry-After.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String LOGIN_PATH = "/api/auth/login";
+
+    // Login bodies are tiny; anything bigger is refused without parsing
+    private static final int MAX_BODY_BYTES = 8192;
+
+    private static final byte[] REJECTED_BODY = "{\"message\":\"Too many login attempts, try again later\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final boolean enabled;
+
+    private final TokenBucketLimiter byIp;
+
+    private final TokenBucketLimiter byUsername;
+
+    private final ObjectMapper objectMapper;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedByIp = new LongAdder();
+    private final LongAdder rejectedByUsername = new LongAdder();
+
+    public LoginRateLimitFilter(Clock clock, ObjectMapper objectMapper,
+            @Value("${app.auth.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.auth.rate-limit.per-ip.capacity:30}") int ipCapacity,
+            @Value("${app.auth.rate-limit.per-ip.refill-per-minute:60}") int ipRefillPerMinute,
+            @Value("${app.auth.rate-limit.per-username.capacity:5}") int usernameCapacity,
+            @Value("${app.auth.rate-limit.per-username.refill-per-minute:10}") int usernameRefillPerMinute,
+            @Value("${app.auth.rate-limit.max-keys:200000}") int maxKeys) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.byIp = new TokenBucketLimiter(clock, ipCapacity, ipRefillPerMinute, maxKeys);
+        this.byUsername = new TokenBucketLimiter(clock, usernameCapacity, usernameRefillPerMinute, maxKeys);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod()) || !LOGIN_PATH.equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Cheapest check first: no body parsing for a flooding client
+        long wait = byIp.tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            rejectedByIp.increment();
+            reject(response, wait);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            response.sendError(HttpStatus.CONTENT_TOO_LARGE.value());
+            return;
+        }
+        String username = username(body);
+        if (username != null) {
+            wait = byUsername.tryAcquire(username.toLowerCase(Locale.ROOT));
+            if (wait > 0) {
+                rejectedByUsername.increment();
+                reject(response, wait);
+                return;
+            }
+        }
+
+        allowed.increment();
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.rate-limit.purge-interval-ms:60000}")
+    public void purgeIdle() {
+        byIp.purgeIdle();
+        byUsername.purgeIdle();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("allowed", allowed.sum());
+        stats.put("rejectedByIp", rejectedByIp.sum());
+        stats.put("rejectedByUsername", rejectedByUsername.sum());
+        stats.put("trackedIps", byIp.size());
+        stats.put("trackedUsernames", byUsername.size());
+        stats.put("evictedKeys", byIp.evicted() + byUsername.evicted());
+        stats.put("rejectedNewKeys", byIp.rejectedKeys() + byUsername.rejectedKeys());
+        return stats;
+    }
+
+    private String username(byte[] body) {
+        try {
+            JsonNode username = objectMapper.readTree(body).get("username");
+            return username != null && username.isString() ? username.asString() : null;
+        } catch (RuntimeException e) {
+            // Malformed bodies are left for the controller to reject
+            return null;
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf((waitMillis + 999) / 1000));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // The body is already in memory: all of it is available at once
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.chrono.auth.security;
+
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import javax.naming.ldap.Rdn;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticates by binding as the user's DN on a pooled connection, then
+ * reverting the connection to the pool identity.
+ */
+public class PooledLdapAuthenticationProvider implements AuthenticationProvider {
+
+    private final LDAPConnectionPool pool;
+
+    private final String userDnPattern;
+
+    private final Timer successTimer;
+
+    private final Timer rejectedTimer;
+
+    private final Timer errorTimer;
+
+    /**
+     * @param userDnPattern full DN with {0} for the username, e.g.
+     *                      {@code uid={0},ou=users,dc=example,dc=com}
+     */
+    public PooledLdapAuthenticationProvider(LDAPConnectionPool pool, String userDnPattern, MeterRegistry registry) {
+        this.pool = pool;
+        this.userDnPattern = userDnPattern;
+        this.successTimer = bindTimer(registry, "success");
+        this.rejectedTimer = bindTimer(registry, "bad_credentials");
+        this.errorTimer = bindTimer(registry, "error");
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        String username = authentication.getName();
+        String password = authentication.getCredentials() != null ? authentication.getCredentials().toString() : "";
+        // An empty password would be an unauthenticated bind, which most directories accept
+        if (username == null || username.isEmpty() || password.isEmpty()) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+
+        String userDn = MessageFormat.format(userDnPattern, Rdn.escapeValue(username));
+        // Includes waiting for a pooled connection, which is where pool exhaustion shows up
+        long start = System.nanoTime();
+        try {
+            pool.bindAndRevertAuthentication(userDn, password);
+        } catch (LDAPException e) {
+            ResultCode code = e.getResultCode();
+            if (code == ResultCode.INVALID_CREDENTIALS || code == ResultCode.NO_SUCH_OBJECT
+                    || code == ResultCode.INVALID_DN_SYNTAX) {
+                rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw new BadCredentialsException("Bad credentials");
+            }
+            errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw new InternalAuthenticationServiceException("LDAP bind failed: " + e.getMessage(), e);
+        }
+        successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
+    }
+
+    private static Timer bindTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("chrono.ldap.bind").tag("outcome", outcome)
+                .description("User bind on a pooled connection, including the wait for a connection")
+                .register(registry);
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
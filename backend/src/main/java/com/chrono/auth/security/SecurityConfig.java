@@ -1,19 +1,22 @@
 package com.chrono.auth.security;
 
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.ldap.core.support.BaseLdapPathContextSource;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.config.ldap.LdapBindAuthenticationManagerFactory;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Clock;
 import java.util.ArrayList;
 
 @Configuration
@@ -23,6 +26,24 @@ public class SecurityConfig {
     @Value("${app.auth-method}")
     private String authMethod;
 
+    @Value("${spring.ldap.base:}")
+    private String ldapBase;
+
+    @Value("${app.ldap.user-dn-pattern:uid={0},ou=users}")
+    private String userDnPattern;
+
+    @Value("${app.ldap.bind-cache.ttl-ms:0}")
+    private long bindCacheTtlMillis;
+
+    @Value("${app.ldap.bind-cache.max-entries:10000}")
+    private int bindCacheMaxEntries;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Autowired
     private JwtAuthFilter jwtAuthFilter;
 
@@ -32,6 +53,9 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Scrapes and health checks on the separate management port, which is never published
+                        .requestMatchers(request -> managementPort > 0 && managementPort != serverPort
+                                && request.getLocalPort() == managementPort).permitAll()
                         .anyRequest().authenticated());
 
         http.addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
@@ -39,16 +63,21 @@ public class SecurityConfig {
     }
 
     @Bean
-    public AuthenticationManager authenticationManager(BaseLdapPathContextSource contextSource) {
+    public AuthenticationManager authenticationManager(ObjectProvider<LDAPConnectionPool> ldapConnectionPool,
+            Clock clock, MeterRegistry meterRegistry) {
         if ("bypass".equalsIgnoreCase(authMethod)) {
             return authentication -> new UsernamePasswordAuthenticationToken(
                     authentication.getName(),
                     authentication.getCredentials(),
                     new ArrayList<>());
         } else {
-            LdapBindAuthenticationManagerFactory factory = new LdapBindAuthenticationManagerFactory(contextSource);
-            factory.setUserDnPatterns("uid={0},ou=users");
-            return factory.createAuthenticationManager();
+            String userDns = ldapBase.isEmpty() ? userDnPattern : userDnPattern + "," + ldapBase;
+            AuthenticationManager ldap = new ProviderManager(
+                    new PooledLdapAuthenticationProvider(ldapConnectionPool.getObject(), userDns, meterRegistry));
+            if (bindCacheTtlMillis > 0) {
+                return new CachingAuthenticationManager(ldap, clock, bindCacheTtlMillis, bindCacheMaxEntries);
+            }
+            return ldap;
         }
     }
 }
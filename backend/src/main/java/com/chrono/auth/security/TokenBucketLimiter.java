@@ -0,0 +1,137 @@
+package com.chrono.auth.security;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-key token bucket, implemented as GCRA: each key holds a single
+ * "theoretical arrival time" in an {@link AtomicLong} that is advanced by
+ * compare-and-set. A key whose bucket has refilled completely carries no
+ * information, so it can be dropped and recreated at any time.
+ *
+ * Keys live in lock-striped maps kept in access order, each holding at most
+ * its share of {@code maxKeys}. A new key in a full stripe replaces the least
+ * recently used one if that bucket has refilled; otherwise the new key is
+ * throttled until it has. Buckets still holding state are never dropped, so a
+ * flood of new keys cannot reset the limits of the ones already tracked.
+ */
+public final class TokenBucketLimiter {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final Clock clock;
+
+    private final long intervalMillis;
+
+    private final long burstMillis;
+
+    private final int maxKeysPerStripe;
+
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder rejectedKeys = new LongAdder();
+
+    /**
+     * @param capacity        attempts allowed in a burst
+     * @param refillPerMinute sustained attempts per minute
+     * @param maxKeys         keys tracked at once, spread over the stripes
+     */
+    public TokenBucketLimiter(Clock clock, int capacity, int refillPerMinute, int maxKeys) {
+        this.clock = clock;
+        this.intervalMillis = Math.max(1, 60_000L / refillPerMinute);
+        this.burstMillis = (capacity - 1) * intervalMillis;
+        this.maxKeysPerStripe = Math.max(1, (maxKeys + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * @return 0 if the attempt is allowed, otherwise the milliseconds until it
+     *         would be
+     */
+    public long tryAcquire(String key) {
+        long now = clock.millis();
+        AtomicLong arrival;
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        stripe.lock.lock();
+        try {
+            arrival = stripe.buckets.get(key);
+            if (arrival == null) {
+                if (stripe.buckets.size() >= maxKeysPerStripe) {
+                    Iterator<AtomicLong> eldest = stripe.buckets.values().iterator();
+                    long idleAt = eldest.next().get();
+                    if (idleAt > now) {
+                        // No room without dropping live state: the newcomer waits for the eldest to refill
+                        rejectedKeys.increment();
+                        return idleAt - now;
+                    }
+                    eldest.remove();
+                    evicted.increment();
+                }
+                arrival = new AtomicLong(now);
+                stripe.buckets.put(key, arrival);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        while (true) {
+            long current = arrival.get();
+            long base = Math.max(current, now);
+            long wait = base - burstMillis - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, base + intervalMillis)) {
+                return 0;
+            }
+        }
+    }
+
+    // Keys with a full bucket behave exactly like absent ones
+    public void purgeIdle() {
+        long now = clock.millis();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.buckets.values().removeIf(arrival -> arrival.get() <= now);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long evicted() {
+        return evicted.sum();
+    }
+
+    public long rejectedKeys() {
+        return rejectedKeys.sum();
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final LinkedHashMap<String, AtomicLong> buckets = new LinkedHashMap<>(16, 0.75f, true);
+    }
+}
@@ -0,0 +1,265 @@
+package com.chrono.auth.security;
+
+import com.chrono.auth.repository.RevokedTokenRepository;
+import com.chrono.auth.repository.RevokedTokenRepository.Revocation;
+import com.chrono.auth.utils.BloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revoked token ids (the jti claim), persisted in revoked_tokens and mirrored
+ * in memory so checking a request never touches the database.
+ *
+ * A Bloom filter sits in front of the in-memory set: a token that was never
+ * revoked, which is nearly every request, is answered by one filter probe.
+ * Only filter hits consult the set. Other replicas' revocations arrive by
+ * polling the table for ids above the last one applied. Ids skipped by
+ * transactions that had not committed yet are re-read until they appear or
+ * {@code gap-timeout-ms} passes. Entries are dropped, and the filter rebuilt,
+ * once their token has expired.
+ */
+@Component
+public class TokenRevocationList implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    // Gaps wider than this between two polled ids are not rolled-back inserts still in flight
+    private static final int MAX_TRACKED_GAP = 1000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final Clock clock;
+
+    private final int expectedEntries;
+
+    private final double falsePositiveRate;
+
+    private final int pollBatchSize;
+
+    private final long gapTimeoutMillis;
+
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    // Serializes writers of the map and filter: request threads revoking, the poller, the purge
+    private final ReentrantLock filterLock = new ReentrantLock();
+
+    // Poller state, only written by the scheduler thread
+    private volatile long lastAppliedId;
+    private boolean loaded;
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+    private volatile int pendingGaps;
+
+    private final LongAdder filterNegatives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder pollFailures = new LongAdder();
+    private final LongAdder persistFailures = new LongAdder();
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository, Clock clock,
+            @Value("${app.jwt.revocation.expected-entries:100000}") int expectedEntries,
+            @Value("${app.jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${app.jwt.revocation.poll-batch-size:1000}") int pollBatchSize,
+            @Value("${app.jwt.revocation.gap-timeout-ms:60000}") long gapTimeoutMillis) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.clock = clock;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.pollBatchSize = pollBatchSize;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    /**
+     * @return true if the token was revoked; tokens without an id (issued
+     *         before ids were added) cannot be revoked
+     */
+    public boolean isRevoked(JwtPrincipal principal) {
+        String tokenId = principal.getTokenId();
+        if (tokenId == null) {
+            untracked.increment();
+            return false;
+        }
+        if (!filter.mightContain(tokenId)) {
+            filterNegatives.increment();
+            return false;
+        }
+        Long expiresAt = revoked.get(tokenId);
+        if (expiresAt == null) {
+            falsePositives.increment();
+            return false;
+        }
+        rejected.increment();
+        return true;
+    }
+
+    /**
+     * Rejects the token on this replica at once and persists the revocation
+     * for the others. If the database is unavailable the revocation still
+     * holds here, but other replicas do not learn of it.
+     *
+     * @return false if the token has no id and cannot be revoked
+     */
+    public boolean revoke(JwtPrincipal principal) {
+        String tokenId = principal.getTokenId();
+        if (tokenId == null) {
+            return false;
+        }
+        apply(tokenId, principal.getExpiresAtMillis());
+        try {
+            revokedTokenRepository.insert(tokenId, toDateTime(principal.getExpiresAtMillis()));
+        } catch (DataIntegrityViolationException e) {
+            // Already revoked, e.g. a repeated logout
+        } catch (DataAccessException e) {
+            persistFailures.increment();
+            log.warn("Token {} revoked on this replica only: {}", tokenId, e.getMessage());
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.poll-interval-ms:1000}")
+    public void poll() {
+        long now = clock.millis();
+        try {
+            long afterId = gaps.isEmpty() ? lastAppliedId : Math.min(gaps.firstKey() - 1, lastAppliedId);
+            while (true) {
+                List<Revocation> changes = revokedTokenRepository.findChangesAfter(afterId,
+                        PageRequest.of(0, pollBatchSize));
+                for (Revocation change : changes) {
+                    long id = change.getId();
+                    if (loaded && id > lastAppliedId + 1 && id - lastAppliedId <= MAX_TRACKED_GAP) {
+                        for (long missing = lastAppliedId + 1; missing < id; missing++) {
+                            gaps.putIfAbsent(missing, now);
+                        }
+                    }
+                    gaps.remove(id);
+                    lastAppliedId = Math.max(lastAppliedId, id);
+                    long expiresAt = change.getExpiresAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+                    if (expiresAt > now) {
+                        apply(change.getTokenId(), expiresAt);
+                    }
+                    afterId = id;
+                }
+                if (changes.size() < pollBatchSize) {
+                    break;
+                }
+            }
+            // Rolled back, or purged before this replica saw it
+            gaps.values().removeIf(firstSeen -> now - firstSeen > gapTimeoutMillis);
+            pendingGaps = gaps.size();
+            loaded = true;
+            polls.increment();
+        } catch (DataAccessException e) {
+            // Database unavailable: local revocations still apply, remote ones arrive on a later poll
+            pollFailures.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        long now = clock.millis();
+        filterLock.lock();
+        try {
+            if (revoked.values().removeIf(expiresAt -> expiresAt <= now)) {
+                rebuildFilter();
+            }
+        } finally {
+            filterLock.unlock();
+        }
+        try {
+            revokedTokenRepository.deleteExpired(toDateTime(now));
+        } catch (DataAccessException e) {
+            // Every replica purges; another one will get to it
+        }
+    }
+
+    public Map<String, Object> stats() {
+        BloomFilter current = filter;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("revokedTokens", revoked.size());
+        stats.put("filterCapacity", current.expectedEntries());
+        stats.put("filterBits", current.bitCount());
+        stats.put("filterHashes", current.hashCount());
+        stats.put("filterNegatives", filterNegatives.sum());
+        stats.put("falsePositives", falsePositives.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("untrackedTokens", untracked.sum());
+        stats.put("lastAppliedId", lastAppliedId);
+        stats.put("pendingGaps", pendingGaps);
+        stats.put("polls", polls.sum());
+        stats.put("pollFailures", pollFailures.sum());
+        stats.put("persistFailures", persistFailures.sum());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("chrono.jwt.revocation.checks", filterNegatives, LongAdder::sum)
+                .tag("result", "filter_negative").register(registry);
+        FunctionCounter.builder("chrono.jwt.revocation.checks", falsePositives, LongAdder::sum)
+                .tag("result", "false_positive").register(registry);
+        FunctionCounter.builder("chrono.jwt.revocation.checks", rejected, LongAdder::sum)
+                .tag("result", "revoked").register(registry);
+        FunctionCounter.builder("chrono.jwt.revocation.poll.failures", pollFailures, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("chrono.jwt.revocation.persist.failures", persistFailures, LongAdder::sum)
+                .description("Revocations applied locally but not persisted for the other replicas")
+                .register(registry);
+        Gauge.builder("chrono.jwt.revocation.entries", revoked, Map::size).register(registry);
+    }
+
+    // Map first, then filter: a filter hit always finds its entry
+    private void apply(String tokenId, long expiresAtMillis) {
+        filterLock.lock();
+        try {
+            if (revoked.put(tokenId, expiresAtMillis) == null) {
+                if (revoked.size() > filter.expectedEntries()) {
+                    rebuildFilter();
+                } else {
+                    filter.put(tokenId);
+                }
+            }
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
+    // Callers hold filterLock, so no revocation lands between the copy and the swap
+    private void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, 2 * revoked.size()), falsePositiveRate);
+        for (Iterator<String> ids = revoked.keySet().iterator(); ids.hasNext();) {
+            rebuilt.put(ids.next());
+        }
+        filter = rebuilt;
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,215 @@
+package com.chrono.auth.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Owns the activity_logs DDL.
+ *
+ * On MariaDB/MySQL the table is range-partitioned by month on timestamp, with
+ * a catch-all pmax partition. A daily job splits the next months out of pmax
+ * and drops whole partitions once they fall out of the retention window, so
+ * retention costs a metadata change rather than a DELETE. Other databases
+ * (and unconverted legacy tables) get a plain table and a DELETE-based
+ * retention.
+ */
+@Component
+public class ActivityLogPartitionManager {
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String PARTITIONED_DDL = """
+            CREATE TABLE IF NOT EXISTS activity_logs (
+                id BIGINT NOT NULL AUTO_INCREMENT,
+                username VARCHAR(100) NOT NULL,
+                action VARCHAR(50) NOT NULL,
+                details TEXT,
+                timestamp DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+                PRIMARY KEY (id, timestamp),
+                KEY idx_activity_logs_username_timestamp (username, timestamp),
+                KEY idx_activity_logs_timestamp_id (timestamp, id)
+            )
+            PARTITION BY RANGE COLUMNS(timestamp) (
+                PARTITION pmax VALUES LESS THAN (MAXVALUE)
+            )""";
+
+    private static final String PLAIN_DDL = """
+            CREATE TABLE IF NOT EXISTS activity_logs (
+                id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                username VARCHAR(100) NOT NULL,
+                action VARCHAR(50) NOT NULL,
+                details TEXT,
+                timestamp TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)
+            )""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Clock clock;
+
+    private final boolean partitioningEnabled;
+
+    private final boolean convertExisting;
+
+    private final int premakeMonths;
+
+    private final int retentionMonths;
+
+    private boolean mysqlFamily;
+
+    public ActivityLogPartitionManager(JdbcTemplate jdbcTemplate, Clock clock,
+            @Value("${app.logs.partitioning.enabled:true}") boolean partitioningEnabled,
+            @Value("${app.logs.partitioning.convert-existing:false}") boolean convertExisting,
+            @Value("${app.logs.partitioning.premake-months:3}") int premakeMonths,
+            @Value("${app.logs.retention.months:12}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.partitioningEnabled = partitioningEnabled;
+        this.convertExisting = convertExisting;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @PostConstruct
+    public void ensureSchema() {
+        String product = jdbcTemplate.execute((java.sql.Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            return metaData.getDatabaseProductName();
+        });
+        mysqlFamily = product != null && product.toLowerCase(Locale.ROOT).matches(".*(mariadb|mysql).*");
+
+        if (mysqlFamily && partitioningEnabled) {
+            jdbcTemplate.execute(PARTITIONED_DDL);
+            if (partitions().isEmpty() && convertExisting) {
+                // Rebuilds the table once; timestamp must join the primary key to partition on it. The
+                // existing rows land in monthly partitions straight away, so retention can drop them
+                jdbcTemplate.execute("ALTER TABLE activity_logs MODIFY timestamp DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6), "
+                        + "DROP PRIMARY KEY, ADD PRIMARY KEY (id, timestamp), "
+                        + "PARTITION BY RANGE COLUMNS(timestamp) ("
+                        + partitionDefinitions(oldestMonth(), YearMonth.now(clock).plusMonths(premakeMonths)) + ")");
+            }
+        } else {
+            jdbcTemplate.execute(PLAIN_DDL);
+        }
+        createIndex("idx_activity_logs_username_timestamp", "username, timestamp");
+        createIndex("idx_activity_logs_timestamp_id", "timestamp, id");
+
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.logs.retention.cron:0 15 3 * * *}")
+    public void maintain() {
+        LocalDate cutoff = YearMonth.now(clock).minusMonths(retentionMonths).atDay(1);
+        List<Map<String, Object>> partitions = mysqlFamily && partitioningEnabled ? partitions() : List.of();
+
+        if (partitions.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM activity_logs WHERE timestamp < ?", cutoff.atStartOfDay());
+            return;
+        }
+
+        addUpcomingPartitions(partitions);
+        dropExpiredPartitions(partitions, cutoff);
+    }
+
+    private List<Map<String, Object>> partitions() {
+        return jdbcTemplate.queryForList("SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'activity_logs' AND PARTITION_NAME IS NOT NULL "
+                + "ORDER BY PARTITION_ORDINAL_POSITION");
+    }
+
+    private void addUpcomingPartitions(List<Map<String, Object>> partitions) {
+        String lastMonthly = null;
+        for (Map<String, Object> partition : partitions) {
+            String name = (String) partition.get("PARTITION_NAME");
+            if (!"pmax".equals(name)) {
+                lastMonthly = name;
+            }
+        }
+
+        // With no monthly partitions yet every row sits in pmax, so split from the oldest of them
+        YearMonth first = lastMonthly == null ? oldestMonth()
+                : YearMonth.parse(lastMonthly, PARTITION_NAME).plusMonths(1);
+        YearMonth last = YearMonth.now(clock).plusMonths(premakeMonths);
+        if (first.isAfter(last)) {
+            return;
+        }
+        // pmax otherwise only holds rows beyond the premade months, so splitting it is cheap
+        jdbcTemplate.execute("ALTER TABLE activity_logs REORGANIZE PARTITION pmax INTO ("
+                + partitionDefinitions(first, last) + ")");
+    }
+
+    /**
+     * One partition per month from {@code first} to {@code last}, followed by
+     * the catch-all pmax.
+     */
+    static String partitionDefinitions(YearMonth first, YearMonth last) {
+        StringBuilder definitions = new StringBuilder();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            definitions.append("PARTITION ").append(month.format(PARTITION_NAME))
+                    .append(" VALUES LESS THAN ('").append(month.plusMonths(1).atDay(1)).append("'), ");
+        }
+        return definitions.append("PARTITION pmax VALUES LESS THAN (MAXVALUE)").toString();
+    }
+
+    private YearMonth oldestMonth() {
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM activity_logs",
+                LocalDateTime.class);
+        YearMonth current = YearMonth.now(clock);
+        return oldest == null || YearMonth.from(oldest).isAfter(current) ? current : YearMonth.from(oldest);
+    }
+
+    // CREATE INDEX IF NOT EXISTS is MariaDB syntax that MySQL rejects, so the family checks the catalog
+    private void createIndex(String name, String columns) {
+        if (mysqlFamily) {
+            Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.STATISTICS "
+                    + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'activity_logs' AND INDEX_NAME = ?",
+                    Integer.class, name);
+            if (existing == null || existing == 0) {
+                jdbcTemplate.execute("CREATE INDEX " + name + " ON activity_logs (" + columns + ")");
+            }
+        } else {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + name + " ON activity_logs (" + columns + ")");
+        }
+    }
+
+    private void dropExpiredPartitions(List<Map<String, Object>> partitions, LocalDate cutoff) {
+        List<String> expired = expiredPartitions(partitions, cutoff);
+        if (!expired.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE activity_logs DROP PARTITION " + String.join(", ", expired));
+        }
+    }
+
+    /**
+     * Partitions whose upper bound is on or before the cutoff. The bound comes
+     * from information_schema as a quoted literal, e.g. {@code '2025-02-01'}
+     * or {@code '2025-02-01 00:00:00'}.
+     */
+    static List<String> expiredPartitions(List<Map<String, Object>> partitions, LocalDate cutoff) {
+        List<String> expired = new ArrayList<>();
+        for (Map<String, Object> partition : partitions) {
+            String name = (String) partition.get("PARTITION_NAME");
+            String bound = (String) partition.get("PARTITION_DESCRIPTION");
+            if ("pmax".equals(name) || bound == null || bound.contains("MAXVALUE")) {
+                continue;
+            }
+            LocalDate upperBound = LocalDate.parse(bound.replace("'", "").trim().substring(0, 10));
+            if (!upperBound.isAfter(cutoff)) {
+                expired.add(name);
+            }
+        }
+        return expired;
+    }
+}
@@ -0,0 +1,442 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.entity.ActivityLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Takes activity-log writes off the request path.
+ *
+ * Entries go into a bounded queue that a single writer thread drains into
+ * multi-row JDBC batch inserts, flushing when a batch is full or the flush
+ * interval has passed since its first entry. When the queue is full the
+ * overflow policy decides: BLOCK waits up to block-timeout-ms then drops,
+ * DROP drops immediately, SPILL appends to a local file that is replayed
+ * into the database once the writer is idle. Everything queued is flushed
+ * on graceful shutdown.
+ *
+ * A batch the database refuses is retried row by row, so only the rows it
+ * rejects are lost. Replay records how far it got after every chunk, and
+ * skips spill lines it cannot decode, such as one cut off by a crash.
+ */
+@Component
+@DependsOn("activityLogPartitionManager")
+public class ActivityLogWriter implements MeterBinder {
+
+    public enum OverflowPolicy {
+        BLOCK, DROP, SPILL
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityLogWriter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO activity_logs (username, action, details, timestamp) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final RecentActivityStore recentActivity;
+
+    private final BlockingQueue<ActivityLog> queue;
+
+    private final int flushSize;
+
+    private final long flushIntervalMillis;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final long blockTimeoutMillis;
+
+    private final Path spillFile;
+
+    private final ReentrantLock spillLock = new ReentrantLock();
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder malformedSpillLines = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final AtomicLong maxBatchNanos = new AtomicLong();
+    private final AtomicLong lastBatchNanos = new AtomicLong();
+
+    private volatile Timer batchTimer;
+
+    public ActivityLogWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            RecentActivityStore recentActivity,
+            @Value("${app.audit.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.audit.flush-size:500}") int flushSize,
+            @Value("${app.audit.flush-interval-ms:200}") long flushIntervalMillis,
+            @Value("${app.audit.overflow-policy:block}") String overflowPolicy,
+            @Value("${app.audit.block-timeout-ms:1000}") long blockTimeoutMillis,
+            @Value("${app.audit.spill-file:activity-log-spill.log}") String spillFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.recentActivity = recentActivity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushSize = flushSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.toUpperCase(Locale.ROOT));
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.spillFile = Paths.get(spillFile);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "activity-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        // Anything submitted while the writer was exiting
+        List<ActivityLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    public void submit(ActivityLog log) {
+        submitted.increment();
+        recentActivity.record(log);
+        if (queue.offer(log)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    if (queue.offer(log, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dropped.increment();
+            }
+            case SPILL -> spill(List.of(log));
+            default -> dropped.increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        batchTimer = Timer.builder("chrono.activity.log.batch")
+                .description("Multi-row insert of one batch of activity-log entries").register(registry);
+        Gauge.builder("chrono.activity.log.queue.depth", queue, BlockingQueue::size).register(registry);
+        bindCounter(registry, "submitted", submitted);
+        bindCounter(registry, "written", written);
+        bindCounter(registry, "dropped", dropped);
+        bindCounter(registry, "spilled", spilled);
+        bindCounter(registry, "rejected", rejected);
+        FunctionCounter.builder("chrono.activity.log.failed.batches", failedBatches, LongAdder::sum).register(registry);
+    }
+
+    private static void bindCounter(MeterRegistry registry, String outcome, LongAdder adder) {
+        FunctionCounter.builder("chrono.activity.log.entries", adder, LongAdder::sum).tag("outcome", outcome)
+                .register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        long batchCount = batches.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueRemainingCapacity", queue.remainingCapacity());
+        stats.put("overflowPolicy", overflowPolicy.name());
+        stats.put("submitted", submitted.sum());
+        stats.put("written", written.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("spilled", spilled.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("malformedSpillLines", malformedSpillLines.sum());
+        stats.put("batches", batchCount);
+        stats.put("failedBatches", failedBatches.sum());
+        stats.put("lastBatchMillis", lastBatchNanos.get() / 1_000_000.0);
+        stats.put("maxBatchMillis", maxBatchNanos.get() / 1_000_000.0);
+        stats.put("avgBatchMillis", batchCount == 0 ? 0.0 : batchNanos.sum() / 1_000_000.0 / batchCount);
+        return stats;
+    }
+
+    private void runWriter() {
+        List<ActivityLog> batch = new ArrayList<>(flushSize);
+        boolean starting = true;
+        while (running || !queue.isEmpty()) {
+            try {
+                if (starting) {
+                    // Left over from the previous run; inside the try so a failure cannot end the writer
+                    starting = false;
+                    replaySpillFile();
+                }
+                ActivityLog first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // Idle: a good moment to catch up on anything spilled under load
+                    replaySpillFile();
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < flushSize) {
+                    queue.drainTo(batch, flushSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= flushSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    ActivityLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Whatever is still queued is flushed by stop()
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failedBatches.increment();
+                log.warn("Activity-log writer failed on a batch of {}", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<ActivityLog> batch) {
+        long start = System.nanoTime();
+        List<ActivityLog> unwritten = write(batch);
+        if (!unwritten.isEmpty()) {
+            if (overflowPolicy == OverflowPolicy.SPILL) {
+                spill(unwritten);
+            } else {
+                dropped.add(unwritten.size());
+            }
+            return;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Timer timer = batchTimer;
+        if (timer != null) {
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        batches.increment();
+        batchNanos.add(elapsed);
+        lastBatchNanos.set(elapsed);
+        maxBatchNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    /**
+     * Inserts the batch; if that fails, retries its rows one by one. Rows the
+     * database rejects (an over-long value, say) are dropped, the others are
+     * still written.
+     *
+     * @return the rows left unwritten because the database is unavailable
+     */
+    private List<ActivityLog> write(List<ActivityLog> batch) {
+        try {
+            insert(batch);
+            written.add(batch.size());
+            return List.of();
+        } catch (DataAccessException | TransactionException e) {
+            failedBatches.increment();
+            int rejectedRows = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    insert(batch.subList(i, i + 1));
+                    written.increment();
+                } catch (DataIntegrityViolationException rowFailure) {
+                    rejectedRows++;
+                } catch (DataAccessException | TransactionException rowFailure) {
+                    // Not this row: the database is unavailable, and the rest would fail the same way
+                    rejected.add(rejectedRows);
+                    dropped.add(rejectedRows);
+                    log.warn("Activity-log batch of {} failed: {} rows rejected, {} left unwritten: {}",
+                            batch.size(), rejectedRows, batch.size() - i, rootMessage(rowFailure));
+                    return batch.subList(i, batch.size());
+                }
+            }
+            rejected.add(rejectedRows);
+            dropped.add(rejectedRows);
+            log.warn("Activity-log batch of {} failed: {} rows rejected and dropped, the rest written: {}",
+                    batch.size(), rejectedRows, rootMessage(e));
+            return List.of();
+        }
+    }
+
+    // One transaction: a failed batch leaves no rows behind for the row-by-row retry to duplicate
+    private void insert(List<ActivityLog> batch) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch,
+                batch.size(), (ps, entry) -> {
+                    ps.setString(1, entry.getUsername());
+                    ps.setString(2, entry.getAction());
+                    ps.setString(3, entry.getDetails());
+                    ps.setTimestamp(4, Timestamp.valueOf(entry.getTimestamp()));
+                }));
+    }
+
+    private static String rootMessage(Exception e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    private void spill(List<ActivityLog> logs) {
+        StringBuilder lines = new StringBuilder();
+        for (ActivityLog log : logs) {
+            lines.append(log.getTimestamp()).append('\t')
+                    .append(encode(log.getUsername())).append('\t')
+                    .append(encode(log.getAction())).append('\t')
+                    .append(log.getDetails() == null ? "-" : encode(log.getDetails())).append('\n');
+        }
+
+        spillLock.lock();
+        try {
+            Files.writeString(spillFile, lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            spilled.add(logs.size());
+        } catch (IOException e) {
+            dropped.add(logs.size());
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private void replaySpillFile() {
+        Path replaying = spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+        // Lines of .replay already inserted, saved after every chunk so a restart or retry resumes there
+        Path progress = spillFile.resolveSibling(spillFile.getFileName() + ".replay.done");
+        List<String> lines;
+        int replayed;
+        spillLock.lock();
+        try {
+            if (!Files.exists(replaying)) {
+                if (!Files.exists(spillFile)) {
+                    return;
+                }
+                Files.deleteIfExists(progress);
+                Files.move(spillFile, replaying, StandardCopyOption.ATOMIC_MOVE);
+            }
+            lines = Files.readAllLines(replaying, StandardCharsets.UTF_8);
+            replayed = Files.exists(progress) ? Integer.parseInt(Files.readString(progress).trim()) : 0;
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Cannot read spilled activity logs from {}: {}", replaying, e.toString());
+            return;
+        } finally {
+            spillLock.unlock();
+        }
+
+        try {
+            while (replayed < lines.size()) {
+                int end = Math.min(replayed + flushSize, lines.size());
+                List<ActivityLog> batch = new ArrayList<>(end - replayed);
+                List<Integer> batchLines = new ArrayList<>(end - replayed);
+                for (int i = replayed; i < end; i++) {
+                    String line = lines.get(i);
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        batch.add(decode(line));
+                        batchLines.add(i);
+                    } catch (RuntimeException e) {
+                        // Typically the last line, cut off by a crash while it was appended
+                        malformedSpillLines.increment();
+                        log.warn("Skipping malformed line {} of {}: {}", i + 1, replaying, e.toString());
+                    }
+                }
+                List<ActivityLog> unwritten = batch.isEmpty() ? List.of() : write(batch);
+                if (!unwritten.isEmpty()) {
+                    // Database unavailable: resume from the first unwritten row when idle again
+                    saveProgress(progress, batchLines.get(batch.size() - unwritten.size()));
+                    return;
+                }
+                replayed = end;
+                saveProgress(progress, replayed);
+            }
+            Files.deleteIfExists(progress);
+            Files.deleteIfExists(replaying);
+        } catch (IOException e) {
+            failedBatches.increment();
+            log.warn("Cannot record activity-log replay progress in {}: {}", progress, e.toString());
+        }
+    }
+
+    private static void saveProgress(Path progress, int lines) throws IOException {
+        Path temp = progress.resolveSibling(progress.getFileName() + ".tmp");
+        Files.writeString(temp, Integer.toString(lines), StandardCharsets.UTF_8);
+        Files.move(temp, progress, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeField(String value) {
+        return new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+
+    private static ActivityLog decode(String line) {
+        String[] fields = line.split("\t", -1);
+        ActivityLog log = new ActivityLog(decodeField(fields[1]), decodeField(fields[2]),
+                "-".equals(fields[3]) ? null : decodeField(fields[3]));
+        log.setTimestamp(LocalDateTime.parse(fields[0]));
+        return log;
+    }
+}
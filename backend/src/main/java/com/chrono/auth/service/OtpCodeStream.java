@@ -0,0 +1,416 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.repository.OtpServiceRepository;
+import com.chrono.auth.repository.OtpServiceRepository.StreamedService;
+import com.chrono.auth.utils.TotpCodeCache;
+import com.chrono.auth.utils.TotpParameters;
+import com.chrono.auth.utils.VirtualThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes each subscriber's current codes over Server-Sent Events.
+ *
+ * A single ticker thread wakes at every step boundary of the periods in use,
+ * loads the services of all subscribed users in one query (admins get every
+ * service), generates their codes as one batch, renders each user's event once
+ * and hands it to a small sender pool, or to virtual threads where available,
+ * for every open connection of that user. Idle connections hold no thread,
+ * only the async request and its emitter.
+ */
+@Component
+public class OtpCodeStream {
+
+    private static final Logger log = LoggerFactory.getLogger(OtpCodeStream.class);
+
+    public static final String EVENT_NAME = "codes";
+
+    private static final int QUERY_CHUNK = 1000;
+
+    private final OtpServiceRepository otpServiceRepository;
+
+    private final TotpCodeCache codeCache;
+
+    private final ObjectMapper objectMapper;
+
+    private final Clock clock;
+
+    private final long emitterTimeoutMillis;
+
+    private final int maxConnections;
+
+    private final Executor senders;
+
+    private final ConcurrentHashMap<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    // Stream -> id of the JWT it was opened with, so revoking the token closes it
+    private final ConcurrentHashMap<SseEmitter, TokenStream> tokenStreams = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicLong lastPublishedBoundary = new AtomicLong(Long.MIN_VALUE);
+
+    // Periods of every service rendered so far; the ticker wakes at each of their boundaries
+    private final Set<Integer> periods = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService ticker;
+
+    // Held by the ticker rescheduling itself and by subscribers bringing a shorter period
+    private final ReentrantLock scheduling = new ReentrantLock();
+
+    private ScheduledFuture<?> nextTick;
+
+    private volatile long nextTickMillis;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder failedSends = new LongAdder();
+    private final LongAdder ticks = new LongAdder();
+    private final AtomicLong lastTickNanos = new AtomicLong();
+
+    @Autowired
+    public OtpCodeStream(OtpServiceRepository otpServiceRepository, TotpCodeCache codeCache,
+            ObjectMapper objectMapper, Clock clock,
+            @Value("${app.otp.stream.timeout-ms:1800000}") long emitterTimeoutMillis,
+            @Value("${app.otp.stream.max-connections:5000}") int maxConnections,
+            @Value("${app.otp.stream.send-threads:4}") int sendThreads) {
+        this(otpServiceRepository, codeCache, objectMapper, clock, emitterTimeoutMillis, maxConnections,
+                VirtualThreads.isSupported()
+                        ? VirtualThreads.newPerTaskExecutor()
+                        : Executors.newFixedThreadPool(sendThreads, r -> daemon(r, "otp-stream-sender")));
+    }
+
+    /**
+     * @param senders runs each send; {@code Runnable::run} sends on the
+     *                publishing thread
+     */
+    public OtpCodeStream(OtpServiceRepository otpServiceRepository, TotpCodeCache codeCache,
+            ObjectMapper objectMapper, Clock clock, long emitterTimeoutMillis, int maxConnections, Executor senders) {
+        this.otpServiceRepository = otpServiceRepository;
+        this.codeCache = codeCache;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.maxConnections = maxConnections;
+        this.senders = senders;
+        this.periods.add(TotpParameters.DEFAULT.period());
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "otp-stream-ticker"));
+        scheduleNextTick();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        for (Subscriber subscriber : subscribers.values()) {
+            subscriber.emitters.forEach(SseEmitter::complete);
+        }
+        subscribers.clear();
+        tokenStreams.clear();
+        if (senders instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Opens a stream and sends the current codes right away.
+     *
+     * @param tokenId id of the JWT the stream was opened with, or null
+     * @return null if the connection limit has been reached
+     */
+    public SseEmitter subscribe(Long userId, String tokenId, boolean admin) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        return register(emitter, userId, tokenId, admin) ? emitter : null;
+    }
+
+    /**
+     * Subscribes an emitter the caller created and sends it the current codes.
+     *
+     * @return false if the connection limit has been reached
+     */
+    public boolean register(SseEmitter emitter, Long userId, String tokenId, boolean admin) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        subscribers.compute(userId, (id, subscriber) -> {
+            Subscriber target = subscriber != null ? subscriber : new Subscriber();
+            target.admin = admin;
+            target.emitters.add(emitter);
+            return target;
+        });
+        if (tokenId != null) {
+            tokenStreams.put(emitter, new TokenStream(userId, tokenId));
+        }
+        emitter.onCompletion(() -> unregister(userId, emitter));
+        emitter.onTimeout(() -> unregister(userId, emitter));
+        emitter.onError(e -> unregister(userId, emitter));
+
+        String event;
+        try {
+            List<StreamedService> services = admin
+                    ? otpServiceRepository.findAllStreamedServices()
+                    : otpServiceRepository.findStreamedServicesByUserIds(List.of(userId));
+            event = render(services, generate(services));
+        } catch (RuntimeException e) {
+            // Subscribed first so no publish is missed meanwhile; a failed load must not hold the slot
+            unregister(userId, emitter);
+            throw e;
+        }
+        send(userId, emitter, event);
+        scheduleEarlierTick();
+        return true;
+    }
+
+    /**
+     * Closes the streams opened with a token, e.g. because it was revoked: the
+     * connection was authorized once, when it was opened, and would otherwise
+     * keep receiving codes until it times out.
+     *
+     * @return the number of streams closed
+     */
+    public int closeToken(String tokenId) {
+        // Logouts are rare next to publishes: a scan here beats an index maintained on every connect
+        int closed = 0;
+        for (Map.Entry<SseEmitter, TokenStream> entry : tokenStreams.entrySet()) {
+            if (entry.getValue().tokenId().equals(tokenId)) {
+                unregister(entry.getValue().userId(), entry.getKey());
+                entry.getKey().complete();
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Sends the current codes to every open stream. Called by the ticker at
+     * each boundary; a boundary is only published once.
+     */
+    public void publish() {
+        long started = System.nanoTime();
+        long boundary = lastBoundary(clock.millis());
+        long last = lastPublishedBoundary.get();
+        if (last >= boundary || !lastPublishedBoundary.compareAndSet(last, boundary)) {
+            return;
+        }
+
+        List<Long> userIds = new ArrayList<>();
+        boolean anyAdmin = false;
+        for (Map.Entry<Long, Subscriber> entry : subscribers.entrySet()) {
+            userIds.add(entry.getKey());
+            anyAdmin |= entry.getValue().admin;
+        }
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        List<StreamedService> all = anyAdmin ? otpServiceRepository.findAllStreamedServices() : null;
+        List<StreamedService> loaded = all != null ? all : loadOwned(userIds);
+        Map<Long, TotpCodeCache.Codes> codes = generate(loaded);
+        Map<Long, List<StreamedService>> byOwner = groupByOwner(loaded);
+
+        String allEvent = all != null ? render(all, codes) : null;
+        for (Map.Entry<Long, Subscriber> entry : subscribers.entrySet()) {
+            Subscriber subscriber = entry.getValue();
+            String event = subscriber.admin && allEvent != null
+                    ? allEvent
+                    : render(byOwner.getOrDefault(entry.getKey(), List.of()), codes);
+            for (SseEmitter emitter : subscriber.emitters) {
+                senders.execute(() -> send(entry.getKey(), emitter, event));
+            }
+        }
+        ticks.increment();
+        lastTickNanos.set(System.nanoTime() - started);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connections.get());
+        stats.put("subscribedUsers", subscribers.size());
+        stats.put("maxConnections", maxConnections);
+        stats.put("rejected", rejected.sum());
+        stats.put("events", events.sum());
+        stats.put("failedSends", failedSends.sum());
+        stats.put("ticks", ticks.sum());
+        stats.put("lastTickMillis", lastTickNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private void scheduleNextTick() {
+        scheduling.lock();
+        try {
+            long millis = clock.millis();
+            nextTickMillis = nextBoundary(millis);
+            nextTick = ticker.schedule(this::tick, nextTickMillis - millis, TimeUnit.MILLISECONDS);
+        } finally {
+            scheduling.unlock();
+        }
+    }
+
+    // A new subscriber may have brought a shorter period than the pending tick allows for
+    private void scheduleEarlierTick() {
+        // Nearly every subscriber leaves the pending tick as it is: decide that without the lock
+        if (nextBoundary(clock.millis()) >= nextTickMillis) {
+            return;
+        }
+        scheduling.lock();
+        try {
+            if (nextTick != null && nextBoundary(clock.millis()) < nextTickMillis && nextTick.cancel(false)) {
+                scheduleNextTick();
+            }
+        } finally {
+            scheduling.unlock();
+        }
+    }
+
+    private void tick() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            // Database unavailable: streams stay open and catch up at the next boundary
+            log.warn("Publishing OTP codes failed; retrying at the next boundary", e);
+        } finally {
+            if (!ticker.isShutdown()) {
+                scheduleNextTick();
+            }
+        }
+    }
+
+    private long nextBoundary(long millis) {
+        long next = Long.MAX_VALUE;
+        for (int period : periods) {
+            long periodMillis = period * 1000L;
+            next = Math.min(next, (millis / periodMillis + 1) * periodMillis);
+        }
+        return next;
+    }
+
+    private long lastBoundary(long millis) {
+        long last = Long.MIN_VALUE;
+        for (int period : periods) {
+            long periodMillis = period * 1000L;
+            last = Math.max(last, millis / periodMillis * periodMillis);
+        }
+        return last;
+    }
+
+    private Map<Long, TotpCodeCache.Codes> generate(List<StreamedService> services) {
+        List<TotpCodeCache.Codes> codes = codeCache.getCodes(services);
+        Map<Long, TotpCodeCache.Codes> byId = new HashMap<>(services.size() * 2);
+        for (int i = 0; i < services.size(); i++) {
+            byId.put(services.get(i).getId(), codes.get(i));
+            periods.add(services.get(i).getPeriod());
+        }
+        return byId;
+    }
+
+    private List<StreamedService> loadOwned(List<Long> userIds) {
+        List<StreamedService> services = new ArrayList<>();
+        for (int from = 0; from < userIds.size(); from += QUERY_CHUNK) {
+            services.addAll(otpServiceRepository.findStreamedServicesByUserIds(
+                    userIds.subList(from, Math.min(from + QUERY_CHUNK, userIds.size()))));
+        }
+        return services;
+    }
+
+    private static Map<Long, List<StreamedService>> groupByOwner(List<StreamedService> services) {
+        Map<Long, List<StreamedService>> byOwner = new HashMap<>();
+        for (StreamedService service : services) {
+            byOwner.computeIfAbsent(service.getUserId(), id -> new ArrayList<>()).add(service);
+        }
+        return byOwner;
+    }
+
+    private String render(List<StreamedService> services, Map<Long, TotpCodeCache.Codes> codes) {
+        // Earliest expiry among the services; the next event arrives by then
+        long validUntil = services.isEmpty() ? nextBoundary(clock.millis()) : Long.MAX_VALUE;
+        List<Map<String, Object>> entries = new ArrayList<>(services.size());
+        for (StreamedService service : services) {
+            TotpCodeCache.Codes serviceCodes = codes.get(service.getId());
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", service.getId());
+            entry.put("serviceName", service.getServiceName());
+            entry.put("owner", service.getOwner());
+            entry.put("code", serviceCodes.code());
+            entry.put("nextCode", serviceCodes.nextCode());
+            entry.put("validUntil", serviceCodes.validUntil());
+            entry.put("period", service.getPeriod());
+            entries.add(entry);
+            validUntil = Math.min(validUntil, serviceCodes.validUntil());
+        }
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("validUntil", validUntil);
+        event.put("services", entries);
+        return objectMapper.writeValueAsString(event);
+    }
+
+    private void send(Long userId, SseEmitter emitter, String event) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(event));
+            events.increment();
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container may not report it until the next write
+            failedSends.increment();
+            unregister(userId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unregister(Long userId, SseEmitter emitter) {
+        tokenStreams.remove(emitter);
+        subscribers.computeIfPresent(userId, (id, subscriber) -> {
+            if (subscriber.emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return subscriber.emitters.isEmpty() ? null : subscriber;
+        });
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record TokenStream(Long userId, String tokenId) {
+    }
+
+    private static final class Subscriber {
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile boolean admin;
+    }
+}
@@ -0,0 +1,199 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.utils.EncryptionUtil;
+import com.chrono.auth.utils.OtpAuthUri;
+import com.chrono.auth.utils.TotpParameters;
+import com.chrono.auth.utils.TotpUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bulk import of OTP services for one user.
+ *
+ * Input is read line by line: either {@code otpauth://totp/...} URIs or
+ * {@code serviceName,secret} CSV, with blank lines and {@code #} comments
+ * skipped. Valid lines are collected into chunks; each chunk is encrypted in
+ * parallel and written with one JDBC batch insert in its own transaction, so
+ * a bad chunk never rolls back earlier ones. Errors are reported per line.
+ */
+@Component
+public class OtpServiceImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(OtpServiceImporter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO otp_services (user_id, service_name, secret_key, algorithm, digits, period_seconds, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_SERVICE_NAME_LENGTH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    private final int maxReportedErrors;
+
+    private final ForkJoinPool cryptoPool;
+
+    public OtpServiceImporter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            @Value("${app.otp.import.chunk-size:1000}") int chunkSize,
+            @Value("${app.otp.import.max-reported-errors:1000}") int maxReportedErrors,
+            @Value("${app.otp.import.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.cryptoPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cryptoPool.shutdownNow();
+    }
+
+    public Map<String, Object> importFrom(long userId, Reader input) throws IOException, InterruptedException {
+        Progress progress = new Progress();
+        List<Line> chunk = new ArrayList<>(chunkSize);
+
+        BufferedReader reader = input instanceof BufferedReader buffered ? buffered : new BufferedReader(input);
+        String text;
+        int lineNumber = 0;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            String line = text.strip();
+            if (line.isEmpty() || line.startsWith("#") || isCsvHeader(line)) {
+                continue;
+            }
+            try {
+                chunk.add(parse(lineNumber, line));
+            } catch (IllegalArgumentException e) {
+                progress.fail(lineNumber, e.getMessage());
+                continue;
+            }
+            if (chunk.size() >= chunkSize) {
+                insert(userId, chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insert(userId, chunk, progress);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("imported", progress.imported);
+        result.put("failed", progress.failed);
+        result.put("errors", progress.errors);
+        result.put("errorsTruncated", progress.failed > progress.errors.size());
+        return result;
+    }
+
+    private void insert(long userId, List<Line> chunk, Progress progress) throws InterruptedException {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            List<Object[]> rows = cryptoPool.submit(() -> chunk.parallelStream()
+                    .map(line -> new Object[] { userId, line.serviceName, EncryptionUtil.encrypt(line.secret),
+                            line.parameters.algorithm().name(), line.parameters.digits(), line.parameters.period(),
+                            createdAt })
+                    .toList()).get();
+            transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+            progress.imported += chunk.size();
+        } catch (ExecutionException | DataAccessException e) {
+            // Driver messages name tables and constraints: log them, report a fixed text per line
+            log.warn("Import of {} lines for user {} failed", chunk.size(), userId, e);
+            String message = failureMessage(e);
+            for (Line line : chunk) {
+                progress.fail(line.number, message);
+            }
+        }
+    }
+
+    private static String failureMessage(Exception e) {
+        if (e instanceof DataIntegrityViolationException) {
+            return "Not imported: rejected by the database (duplicate or invalid value)";
+        }
+        if (e instanceof DataAccessException) {
+            return "Not imported: database unavailable, try again later";
+        }
+        return "Not imported: the secret could not be encrypted";
+    }
+
+    private static Line parse(int number, String line) {
+        String serviceName;
+        String secret;
+        TotpParameters parameters = TotpParameters.DEFAULT;
+        if (OtpAuthUri.isOtpAuthUri(line)) {
+            OtpAuthUri.Entry entry = OtpAuthUri.parse(line);
+            serviceName = entry.serviceName();
+            secret = entry.secret();
+            parameters = entry.parameters();
+        } else {
+            // The secret cannot contain a comma, the service name can
+            int separator = line.lastIndexOf(',');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected an otpauth:// URI or 'serviceName,secret'");
+            }
+            serviceName = unquote(line.substring(0, separator).strip());
+            secret = unquote(line.substring(separator + 1).strip());
+        }
+
+        secret = secret.replace(" ", "").toUpperCase(Locale.ROOT);
+        if (serviceName.isEmpty()) {
+            throw new IllegalArgumentException("Missing service name");
+        }
+        if (serviceName.length() > MAX_SERVICE_NAME_LENGTH) {
+            throw new IllegalArgumentException("Service name longer than " + MAX_SERVICE_NAME_LENGTH + " characters");
+        }
+        if (secret.isEmpty() || !TotpUtils.isValidSecret(secret)) {
+            throw new IllegalArgumentException("Invalid Base32 secret key");
+        }
+        return new Line(number, serviceName, secret, parameters);
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.replace("\"", "").replace(" ", "").equalsIgnoreCase("serviceName,secret");
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1).replace("\"\"", "\"");
+        }
+        return value;
+    }
+
+    private record Line(int number, String serviceName, String secret, TotpParameters parameters) {
+    }
+
+    private final class Progress {
+        private long imported;
+        private long failed;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        private void fail(int line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(Map.of("line", line, "error", message));
+            }
+        }
+    }
+}
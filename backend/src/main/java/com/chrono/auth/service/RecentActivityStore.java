@@ -0,0 +1,313 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.entity.ActivityLog;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory view of recent activity, fed by {@link ActivityLogWriter#submit}.
+ *
+ * Keeps a fixed-size ring of the latest entries per user and overall, plus
+ * per-action counters bucketed by minute over a rolling window. Both are
+ * warmed from activity_logs on startup; a user ring that the warm-up did not
+ * fill is topped up from the database the first time it is read.
+ */
+@Component
+@DependsOn("activityLogPartitionManager")
+public class RecentActivityStore {
+
+    private static final String COLUMNS = "SELECT id, username, action, details, timestamp FROM activity_logs ";
+
+    private static final RowMapper<ActivityLog> ROW_MAPPER = (rs, rowNum) -> {
+        ActivityLog log = new ActivityLog(rs.getString("username"), rs.getString("action"), rs.getString("details"));
+        log.setId(rs.getLong("id"));
+        log.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+        return log;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Entity timestamps are LocalDateTime.now() in the default zone
+    private final Clock clock;
+
+    private final int userCapacity;
+
+    private final int maxUsers;
+
+    private final int windowMinutes;
+
+    private final int warmRows;
+
+    private final ConcurrentHashMap<String, Ring> userRings = new ConcurrentHashMap<>();
+
+    private final Ring globalRing;
+
+    private final ConcurrentHashMap<String, RollingCounter> counters = new ConcurrentHashMap<>();
+
+    public RecentActivityStore(JdbcTemplate jdbcTemplate, Clock clock,
+            @Value("${app.logs.recent.per-user:50}") int userCapacity,
+            @Value("${app.logs.recent.global:500}") int globalCapacity,
+            @Value("${app.logs.recent.max-users:10000}") int maxUsers,
+            @Value("${app.logs.recent.window-minutes:60}") int windowMinutes,
+            @Value("${app.logs.recent.warm-rows:5000}") int warmRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock.withZone(ZoneId.systemDefault());
+        this.userCapacity = userCapacity;
+        this.maxUsers = maxUsers;
+        this.windowMinutes = windowMinutes;
+        this.warmRows = warmRows;
+        this.globalRing = new Ring(globalCapacity);
+    }
+
+    @PostConstruct
+    public void warm() {
+        List<ActivityLog> latest = jdbcTemplate.query(COLUMNS + "ORDER BY timestamp DESC, id DESC LIMIT ?",
+                ROW_MAPPER, warmRows);
+        // Oldest first so the rings end up newest at the head
+        for (int i = latest.size() - 1; i >= 0; i--) {
+            ActivityLog log = latest.get(i);
+            globalRing.add(log);
+            ring(log.getUsername()).add(log);
+        }
+        if (latest.size() < warmRows) {
+            // The whole table fitted, so every ring already has its full history
+            globalRing.loaded = true;
+            userRings.values().forEach(ring -> ring.loaded = true);
+        }
+        for (Ring ring : userRings.values()) {
+            ring.loaded |= ring.size == ring.slots.length;
+        }
+        globalRing.loaded |= globalRing.size == globalRing.slots.length;
+
+        LocalDateTime since = LocalDateTime.now(clock).minusMinutes(windowMinutes);
+        jdbcTemplate.query("SELECT action, timestamp FROM activity_logs WHERE timestamp >= ?",
+                rs -> {
+                    count(rs.getString("action"), rs.getTimestamp("timestamp").toLocalDateTime());
+                }, Timestamp.valueOf(since));
+    }
+
+    public void record(ActivityLog log) {
+        globalRing.add(log);
+        ring(log.getUsername()).add(log);
+        count(log.getAction(), log.getTimestamp());
+    }
+
+    /**
+     * @return up to {@code limit} latest entries for the user, newest first;
+     *         null when more were asked for than the ring holds
+     */
+    public List<ActivityLog> recentForUser(String username, int limit) {
+        if (limit > userCapacity) {
+            return null;
+        }
+        Ring ring = ring(username);
+        if (!ring.loaded) {
+            topUp(username, ring);
+        }
+        return ring.latest(limit);
+    }
+
+    public List<ActivityLog> recent(int limit) {
+        return limit > globalRing.slots.length ? null : globalRing.latest(limit);
+    }
+
+    /**
+     * Per-action counts for the last {@code minutes} minutes, including the
+     * current one. Series run oldest to newest.
+     */
+    public Map<String, Object> stats(int minutes) {
+        int span = Math.max(1, Math.min(minutes, windowMinutes));
+        long now = minuteOf(LocalDateTime.now(clock));
+
+        Map<String, Long> totals = new TreeMap<>();
+        Map<String, long[]> series = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<String, RollingCounter> entry : counters.entrySet()) {
+            long[] perMinute = entry.getValue().series(now, span);
+            long sum = 0;
+            for (long count : perMinute) {
+                sum += count;
+            }
+            totals.put(entry.getKey(), sum);
+            series.put(entry.getKey(), perMinute);
+            total += sum;
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("minutes", span);
+        stats.put("fromMinute", LocalDateTime.ofEpochSecond((now - span + 1) * 60, 0, ZoneOffset.UTC));
+        stats.put("total", total);
+        stats.put("totals", totals);
+        stats.put("series", series);
+        return stats;
+    }
+
+    private Ring ring(String username) {
+        Ring ring = userRings.get(username);
+        if (ring != null) {
+            return ring;
+        }
+        if (userRings.size() >= maxUsers) {
+            // Cheap bound: cleared rings are reloaded from the database on the next read
+            userRings.clear();
+        }
+        return userRings.computeIfAbsent(username, u -> new Ring(userCapacity));
+    }
+
+    private void topUp(String username, Ring ring) {
+        ActivityLog oldest = ring.oldest();
+        List<ActivityLog> older = oldest == null
+                ? jdbcTemplate.query(COLUMNS + "WHERE username = ? ORDER BY timestamp DESC, id DESC LIMIT ?",
+                        ROW_MAPPER, username, userCapacity)
+                : jdbcTemplate.query(COLUMNS + "WHERE username = ? AND timestamp < ? ORDER BY timestamp DESC, id DESC LIMIT ?",
+                        ROW_MAPPER, username, Timestamp.valueOf(oldest.getTimestamp()), userCapacity);
+
+        ring.lock.lock();
+        try {
+            // A record() since the query may have changed the oldest entry; rows not older than it
+            // are either that entry, already written, or were pushed out of a full ring anyway
+            ActivityLog current = ring.oldest();
+            for (ActivityLog log : older) {
+                if (current != null && !log.getTimestamp().isBefore(current.getTimestamp())) {
+                    continue;
+                }
+                if (!ring.addOldest(log)) {
+                    break;
+                }
+            }
+            ring.loaded = true;
+        } finally {
+            ring.lock.unlock();
+        }
+    }
+
+    private void count(String action, LocalDateTime timestamp) {
+        counters.computeIfAbsent(action, a -> new RollingCounter(windowMinutes)).add(minuteOf(timestamp));
+    }
+
+    private static long minuteOf(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static final class Ring {
+        private final ActivityLog[] slots;
+        private final ReentrantLock lock = new ReentrantLock();
+        private int head;
+        private int size;
+        private volatile boolean loaded;
+
+        private Ring(int capacity) {
+            this.slots = new ActivityLog[capacity];
+        }
+
+        private void add(ActivityLog log) {
+            lock.lock();
+            try {
+                slots[head] = log;
+                head = (head + 1) % slots.length;
+                if (size < slots.length) {
+                    size++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Caller holds the lock
+        private boolean addOldest(ActivityLog log) {
+            if (size == slots.length) {
+                return false;
+            }
+            slots[Math.floorMod(head - size - 1, slots.length)] = log;
+            size++;
+            return true;
+        }
+
+        private ActivityLog oldest() {
+            lock.lock();
+            try {
+                return size == 0 ? null : slots[Math.floorMod(head - size, slots.length)];
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<ActivityLog> latest(int limit) {
+            lock.lock();
+            try {
+                int count = Math.min(Math.max(limit, 0), size);
+                List<ActivityLog> result = new ArrayList<>(count);
+                for (int i = 1; i <= count; i++) {
+                    result.add(slots[Math.floorMod(head - i, slots.length)]);
+                }
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // One bucket per minute of the window; LongAdder keeps contended increments striped
+    private static final class RollingCounter {
+        private final AtomicReferenceArray<Bucket> buckets;
+
+        private RollingCounter(int windowMinutes) {
+            this.buckets = new AtomicReferenceArray<>(windowMinutes);
+        }
+
+        private void add(long minute) {
+            int index = (int) Math.floorMod(minute, (long) buckets.length());
+            Bucket bucket = buckets.get(index);
+            while (bucket == null || bucket.minute < minute) {
+                Bucket fresh = new Bucket(minute);
+                if (buckets.compareAndSet(index, bucket, fresh)) {
+                    bucket = fresh;
+                } else {
+                    bucket = buckets.get(index);
+                }
+            }
+            if (bucket.minute == minute) {
+                bucket.count.increment();
+            }
+            // Otherwise the entry is older than the window
+        }
+
+        private long[] series(long now, int span) {
+            long[] result = new long[span];
+            for (int i = 0; i < span; i++) {
+                long minute = now - span + 1 + i;
+                Bucket bucket = buckets.get((int) Math.floorMod(minute, (long) buckets.length()));
+                result[i] = bucket != null && bucket.minute == minute ? bucket.count.sum() : 0;
+            }
+            return result;
+        }
+    }
+
+    private static final class Bucket {
+        private final long minute;
+        private final LongAdder count = new LongAdder();
+
+        private Bucket(long minute) {
+            this.minute = minute;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.repository.OtpServiceRepository;
+import com.chrono.auth.repository.OtpServiceRepository.EncryptedSecret;
+import com.chrono.auth.utils.EncryptionUtil;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rewrites otp_services.secret_key into the current encryption format and key.
+ *
+ * Rows are read in keyset pages by id, re-encrypted in parallel on a dedicated
+ * fork-join pool and written back with one batched UPDATE per page, each in
+ * its own short transaction. The UPDATE only applies if the ciphertext is
+ * unchanged, so concurrent writes are never overwritten and no table lock is
+ * taken.
+ */
+@Component
+public class SecretReEncryptionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SecretReEncryptionJob.class);
+
+    private static final String UPDATE_SQL = "UPDATE otp_services SET secret_key = ? WHERE id = ? AND secret_key = ?";
+
+    private final OtpServiceRepository otpServiceRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final long throttleMillis;
+
+    private final boolean runOnStartup;
+
+    private final ForkJoinPool cryptoPool;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "secret-reencryption");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean cancelRequested = new AtomicBoolean();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong reEncrypted = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong lastId = new AtomicLong();
+    private final AtomicReference<String> lastError = new AtomicReference<>();
+
+    public SecretReEncryptionJob(OtpServiceRepository otpServiceRepository, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.encryption.reencrypt.batch-size:500}") int batchSize,
+            @Value("${app.encryption.reencrypt.throttle-ms:50}") long throttleMillis,
+            @Value("${app.encryption.reencrypt.parallelism:0}") int parallelism,
+            @Value("${app.encryption.reencrypt.on-startup:false}") boolean runOnStartup) {
+        this.otpServiceRepository = otpServiceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.throttleMillis = throttleMillis;
+        this.runOnStartup = runOnStartup;
+        this.cryptoPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        if (runOnStartup) {
+            start();
+        }
+    }
+
+    /**
+     * @return false if a run is already in progress
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        cancelRequested.set(false);
+        scanned.set(0);
+        reEncrypted.set(0);
+        skipped.set(0);
+        conflicts.set(0);
+        lastId.set(0);
+        lastError.set(null);
+        runner.submit(this::run);
+        return true;
+    }
+
+    public void cancel() {
+        cancelRequested.set(true);
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("scanned", scanned.get());
+        status.put("reEncrypted", reEncrypted.get());
+        status.put("skipped", skipped.get());
+        status.put("conflicts", conflicts.get());
+        status.put("lastId", lastId.get());
+        status.put("lastError", lastError.get());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancel();
+        runner.shutdownNow();
+        cryptoPool.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            long afterId = 0;
+            while (!cancelRequested.get()) {
+                List<EncryptedSecret> page = otpServiceRepository.findEncryptedSecretsAfter(afterId,
+                        PageRequest.of(0, batchSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                List<Object[]> updates = cryptoPool.submit(() -> page.parallelStream()
+                        .filter(row -> EncryptionUtil.needsReEncryption(row.getEncryptedSecretKey()))
+                        .map(row -> new Object[] {
+                                EncryptionUtil.encrypt(EncryptionUtil.decrypt(row.getEncryptedSecretKey())),
+                                row.getId(),
+                                row.getEncryptedSecretKey() })
+                        .toList()).get();
+
+                if (!updates.isEmpty()) {
+                    int[] counts = transactionTemplate.execute(tx -> jdbcTemplate.batchUpdate(UPDATE_SQL,
+                            new ArrayList<>(updates)));
+                    recordUpdates(counts);
+                }
+
+                scanned.addAndGet(page.size());
+                skipped.addAndGet(page.size() - updates.size());
+                afterId = page.get(page.size() - 1).getId();
+                lastId.set(afterId);
+
+                if (throttleMillis > 0) {
+                    Thread.sleep(throttleMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Secret re-encryption stopped after id {}", lastId.get(), e);
+            lastError.set(e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void recordUpdates(int[] counts) {
+        for (int count : counts) {
+            // Drivers may report SUCCESS_NO_INFO (-2) for batched statements
+            if (count == 0) {
+                conflicts.incrementAndGet();
+            } else {
+                reEncrypted.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.chrono.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Time from JVM start to the first served API request, by phase.
+ *
+ * Phases come from the {@link BufferingApplicationStartup} that
+ * {@code BackendApplication} installs: the gaps between SpringApplication's
+ * milestones, plus the slowest bean instantiations inside the context refresh
+ * (inclusive of their dependencies, so Flyway and the JPA EntityManagerFactory
+ * show up here unless deferred). The report is logged once the first /api
+ * request has been handled, which with lazy initialization includes creating
+ * whatever that request needed, and the step buffer is then released.
+ */
+@Component
+public class StartupReport {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    private static final String API_PREFIX = "/api/";
+
+    private static final int SLOWEST_BEANS = 10;
+
+    // SpringApplication milestones, in order, and the phase that ends at each
+    private static final String[][] MILESTONES = {
+            { "spring.boot.application.starting", "jvm" },
+            { "spring.boot.application.environment-prepared", "environment" },
+            { "spring.boot.application.context-loaded", "contextPrepare" },
+            { "spring.boot.application.started", "refresh" },
+            { "spring.boot.application.ready", "runners" },
+    };
+
+    private final Environment environment;
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    private final AtomicBoolean published = new AtomicBoolean();
+
+    private volatile Map<String, Object> firstRequest;
+
+    private volatile ApplicationStartup applicationStartup;
+
+    private volatile long readyMillis;
+
+    private volatile Map<String, Object> report;
+
+    public StartupReport(Environment environment) {
+        this.environment = environment;
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        applicationStartup = event.getApplicationContext().getApplicationStartup();
+        readyMillis = event.getTimestamp();
+        if (firstRequest != null) {
+            publish();
+        }
+    }
+
+    // Tomcat accepts requests before the ready event, so either may come first
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (!event.getRequestUrl().startsWith(API_PREFIX) || !firstRequestSeen.compareAndSet(false, true)) {
+            return;
+        }
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("url", event.getMethod() + " " + event.getRequestUrl());
+        request.put("status", event.getStatusCode());
+        request.put("receivedMillis", event.getTimestamp() - event.getProcessingTimeMillis() - jvmStartMillis);
+        request.put("handlingMillis", event.getProcessingTimeMillis());
+        request.put("sinceJvmStartMillis", event.getTimestamp() - jvmStartMillis);
+        firstRequest = request;
+        if (readyMillis > 0) {
+            publish();
+        }
+    }
+
+    private void publish() {
+        if (!published.compareAndSet(false, true)) {
+            return;
+        }
+        report = build(firstRequest, true);
+        log.info("Startup: ready {} ms and first API request served {} ms after JVM start; phases (ms) {}",
+                report.get("timeToReadyMillis"), firstRequest.get("sinceJvmStartMillis"), report.get("phasesMillis"));
+    }
+
+    /**
+     * The report as logged once the first API request has been served, or
+     * the phases so far.
+     */
+    public Map<String, Object> report() {
+        Map<String, Object> current = report;
+        return current != null ? current : build(firstRequest, false);
+    }
+
+    private Map<String, Object> build(Map<String, Object> firstRequest, boolean release) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jvmStartedAt", Instant.ofEpochMilli(jvmStartMillis).toString());
+        result.put("timeToReadyMillis", readyMillis > 0 ? readyMillis - jvmStartMillis : null);
+        result.put("timeToFirstRequestMillis", firstRequest != null ? firstRequest.get("sinceJvmStartMillis") : null);
+
+        List<TimelineEvent> events = timeline(release);
+        Map<String, Instant> milestones = new HashMap<>();
+        List<TimelineEvent> beans = new ArrayList<>();
+        for (TimelineEvent event : events) {
+            String name = event.getStartupStep().getName();
+            if (name.startsWith("spring.boot.application.")) {
+                milestones.putIfAbsent(name, event.getStartTime());
+            } else if ("spring.beans.instantiate".equals(name)) {
+                beans.add(event);
+            }
+        }
+
+        Map<String, Object> phases = new LinkedHashMap<>();
+        long previous = jvmStartMillis;
+        for (String[] milestone : MILESTONES) {
+            Instant reached = milestones.get(milestone[0]);
+            if (reached != null) {
+                phases.put(milestone[1], reached.toEpochMilli() - previous);
+                previous = reached.toEpochMilli();
+            }
+        }
+        if (firstRequest != null) {
+            // Zero when the request was served before the ready event
+            phases.put("firstRequest", Math.max(0,
+                    (Long) firstRequest.get("sinceJvmStartMillis") - (readyMillis - jvmStartMillis)));
+        }
+        result.put("phasesMillis", phases);
+
+        beans.sort(Comparator.comparing(TimelineEvent::getDuration).reversed());
+        List<Map<String, Object>> slowest = new ArrayList<>();
+        for (TimelineEvent bean : beans.subList(0, Math.min(SLOWEST_BEANS, beans.size()))) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("bean", tag(bean.getStartupStep(), "beanName"));
+            entry.put("millis", bean.getDuration().toMillis());
+            slowest.add(entry);
+        }
+        result.put("slowestBeans", slowest);
+        result.put("firstRequest", firstRequest);
+
+        Map<String, Object> mode = new LinkedHashMap<>();
+        mode.put("lazyInitialization", environment.getProperty("spring.main.lazy-initialization", Boolean.class, false));
+        mode.put("jpaBootstrapMode", environment.getProperty("spring.data.jpa.repositories.bootstrap-mode", "default"));
+        mode.put("aot", AotDetector.useGeneratedArtifacts());
+        mode.put("cdsArchive", ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(arg -> arg.startsWith("-XX:SharedArchiveFile="))
+                .map(arg -> arg.substring(arg.indexOf('=') + 1))
+                .findFirst()
+                .orElse(null));
+        result.put("mode", mode);
+        return result;
+    }
+
+    private List<TimelineEvent> timeline(boolean release) {
+        if (!(applicationStartup instanceof BufferingApplicationStartup buffering)) {
+            return List.of();
+        }
+        StartupTimeline timeline = release ? buffering.drainBufferedTimeline() : buffering.getBufferedTimeline();
+        return timeline.getEvents();
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.entity.User;
+import com.chrono.auth.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, TTL-based cache of {@link User} rows keyed by username and by id.
+ *
+ * Entries are evicted on any change to the row through JPA (see
+ * {@link UserCacheInvalidator}); changes made directly in the database are
+ * picked up once the TTL runs out, or at once after {@link #clear()}. This is
+ * also how an admin demotion reaches tokens already issued, since
+ * {@code JwtAuthFilter} confirms admin role claims here; a promotion needs a
+ * new login. Cached users are detached and should be treated as read-only.
+ */
+@Component
+public class UserCache {
+
+    private final UserRepository userRepository;
+
+    private final Clock clock;
+
+    private final int maxEntries;
+
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<String, Entry> byUsername = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, Entry> byId = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public UserCache(UserRepository userRepository, Clock clock,
+            @Value("${app.users.cache.max-entries:10000}") int maxEntries,
+            @Value("${app.users.cache.ttl-ms:300000}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.clock = clock;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public Optional<User> findByUsername(String username) {
+        User cached = fresh(byUsername.get(username));
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    public Optional<User> findById(Long id) {
+        User cached = fresh(byId.get(id));
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    // First login creates the row
+    public User getOrCreate(String username) {
+        return findByUsername(username).orElseGet(() -> {
+            User user = userRepository.save(new User(username));
+            put(user);
+            return user;
+        });
+    }
+
+    public void invalidate(User user) {
+        invalidations.increment();
+        if (user.getUsername() != null) {
+            byUsername.remove(user.getUsername());
+        }
+        if (user.getId() != null) {
+            Entry entry = byId.remove(user.getId());
+            if (entry != null) {
+                // The username itself may have changed
+                byUsername.remove(entry.user.getUsername(), entry);
+            }
+        }
+    }
+
+    public void clear() {
+        byUsername.clear();
+        byId.clear();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", byId.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMillis", ttlMillis);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("loads", loads.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private User fresh(Entry entry) {
+        if (entry != null && entry.expiresAtMillis > clock.millis()) {
+            hits.increment();
+            return entry.user;
+        }
+        misses.increment();
+        return null;
+    }
+
+    private void put(User user) {
+        loads.increment();
+        if (byId.size() >= maxEntries) {
+            // Cheap bound: users are reloaded on their next request
+            clear();
+        }
+        Entry entry = new Entry(user, clock.millis() + ttlMillis);
+        byId.put(user.getId(), entry);
+        byUsername.put(user.getUsername(), entry);
+    }
+
+    private record Entry(User user, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link User} that keeps {@link UserCache} consistent with
+ * writes made through Hibernate, such as a role change.
+ */
+@Component
+public class UserCacheInvalidator {
+
+    // Resolved lazily: listeners are created while the EntityManagerFactory is still being built
+    private final ObjectProvider<UserCache> userCache;
+
+    public UserCacheInvalidator(ObjectProvider<UserCache> userCache) {
+        this.userCache = userCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        UserCache cache = userCache.getIfAvailable();
+        if (cache != null) {
+            cache.invalidate(user);
+        }
+    }
+}
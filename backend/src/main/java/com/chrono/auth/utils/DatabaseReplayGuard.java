@@ -0,0 +1,32 @@
+package com.chrono.auth.utils;
+
+import com.chrono.auth.repository.UsedTimeStepRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Replay state shared by every backend replica through the otp_used_steps
+ * primary key: the first replica to insert a (service, valid_until) wins.
+ */
+public class DatabaseReplayGuard implements ReplayGuard {
+
+    private final UsedTimeStepRepository usedTimeStepRepository;
+
+    public DatabaseReplayGuard(UsedTimeStepRepository usedTimeStepRepository) {
+        this.usedTimeStepRepository = usedTimeStepRepository;
+    }
+
+    @Override
+    public boolean markUsed(long serviceId, long validUntilSecond) {
+        try {
+            usedTimeStepRepository.insert(serviceId, validUntilSecond);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void purgeBefore(long epochSecond) {
+        usedTimeStepRepository.deleteByValidUntilBefore(epochSecond);
+    }
+}
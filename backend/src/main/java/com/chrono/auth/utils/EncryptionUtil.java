@@ -1,58 +1,260 @@
 package com.chrono.auth.utils;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Encrypts OTP secrets at rest.
+ *
+ * Current format (version 1), Base64 encoded:
+ * {@code [version][key id][12-byte nonce][AES-GCM ciphertext + 16-byte tag]}.
+ * The version and key id bytes are authenticated as associated data. Rows
+ * written by the old AES/ECB format are still readable with the current or
+ * any previous key until they are re-encrypted.
+ */
 @Component
-public class EncryptionUtil {
+public class EncryptionUtil implements MeterBinder {
+
+    public static final byte VERSION_GCM = 1;
 
     private static final String ALGORITHM = "AES";
+    private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int HEADER_LENGTH = 2;
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final int MIN_GCM_LENGTH = HEADER_LENGTH + NONCE_LENGTH + TAG_BITS / 8;
 
-    // Spring injects the value but to use it statically in the JPA converter
+    // Spring injects the value but to use it statically in the entity
     // we need a bridge or provide access.
-    private static String key;
+    private static volatile Keyring keyring;
 
-    @Value("${app.encryption.key}")
-    public void setKey(String encryptionKey) {
-        // Pad or truncate key to exactly 32 bytes (256-bit) if needed
-        if (encryptionKey.length() < 32) {
-            encryptionKey = String.format("%1$-32s", encryptionKey).replace(' ', '0');
-        } else if (encryptionKey.length() > 32) {
-            encryptionKey = encryptionKey.substring(0, 32);
+    private static final InstancePool<Cipher> GCM_CIPHER = new InstancePool<>(() -> newCipher(GCM_TRANSFORMATION));
+    private static final InstancePool<Cipher> LEGACY_CIPHER = new InstancePool<>(() -> newCipher(ALGORITHM));
+    private static final InstancePool<SecureRandom> RANDOM = new InstancePool<>(SecureRandom::new);
+
+    // Null until a registry is bound, so plain unit tests and tools pay nothing
+    private static volatile Timer encryptTimer;
+    private static volatile Timer decryptTimer;
+
+    @Autowired
+    public void configure(@Value("${app.encryption.key}") String encryptionKey,
+            @Value("${app.encryption.key-id:1}") int keyId,
+            @Value("${app.encryption.previous-keys:}") String previousKeys) {
+        if (keyId < 0 || keyId > 255) {
+            throw new IllegalArgumentException("app.encryption.key-id must be between 0 and 255");
+        }
+
+        Map<Integer, String> keys = new LinkedHashMap<>();
+        keys.put(keyId, encryptionKey);
+        // "id:key,id:key" - keys still needed to read rows that have not been re-encrypted
+        if (previousKeys != null && !previousKeys.isBlank()) {
+            for (String entry : previousKeys.split(",")) {
+                int separator = entry.indexOf(':');
+                if (separator < 1) {
+                    throw new IllegalArgumentException("app.encryption.previous-keys entries must be 'id:key'");
+                }
+                keys.putIfAbsent(Integer.parseInt(entry.substring(0, separator).trim()), entry.substring(separator + 1));
+            }
         }
-        EncryptionUtil.key = encryptionKey;
+        EncryptionUtil.keyring = new Keyring(keyId, keys);
+    }
+
+    public void setKey(String encryptionKey) {
+        configure(encryptionKey, 1, "");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        encryptTimer = Timer.builder("chrono.aes").tag("operation", "encrypt")
+                .description("AES-GCM encryption of OTP secrets").register(registry);
+        decryptTimer = Timer.builder("chrono.aes").tag("operation", "decrypt")
+                .description("Decryption of stored OTP secrets, legacy formats included").register(registry);
     }
 
     public static String encrypt(String value) {
         if (value == null)
             return null;
+        long start = System.nanoTime();
         try {
-            SecretKeySpec secretKeySpec = new SecretKeySpec(key.getBytes(), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec);
-            byte[] encryptedBytes = cipher.doFinal(value.getBytes());
-            return Base64.getEncoder().encodeToString(encryptedBytes);
+            Keyring ring = keyring;
+            byte[] plain = value.getBytes(StandardCharsets.UTF_8);
+            byte[] out = new byte[MIN_GCM_LENGTH + plain.length];
+            byte[] nonce = new byte[NONCE_LENGTH];
+            SecureRandom random = RANDOM.acquire();
+            try {
+                random.nextBytes(nonce);
+            } finally {
+                RANDOM.release(random);
+            }
+            out[0] = VERSION_GCM;
+            out[1] = (byte) ring.currentKeyId;
+            System.arraycopy(nonce, 0, out, HEADER_LENGTH, NONCE_LENGTH);
+
+            Cipher cipher = GCM_CIPHER.acquire();
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, ring.gcmKeys.get(ring.currentKeyId),
+                        new GCMParameterSpec(TAG_BITS, out, HEADER_LENGTH, NONCE_LENGTH));
+                cipher.updateAAD(out, 0, HEADER_LENGTH);
+                cipher.doFinal(plain, 0, plain.length, out, HEADER_LENGTH + NONCE_LENGTH);
+            } finally {
+                GCM_CIPHER.release(cipher);
+            }
+            return Base64.getEncoder().encodeToString(out);
         } catch (Exception e) {
             throw new RuntimeException("Error encrypting string", e);
+        } finally {
+            record(encryptTimer, start);
         }
     }
 
     public static String decrypt(String encryptedValue) {
         if (encryptedValue == null)
             return null;
+        long start = System.nanoTime();
+        try {
+            return decryptValue(encryptedValue);
+        } finally {
+            record(decryptTimer, start);
+        }
+    }
+
+    private static String decryptValue(String encryptedValue) {
+        byte[] data;
+        try {
+            data = Base64.getDecoder().decode(encryptedValue);
+        } catch (IllegalArgumentException e) {
+            return legacyPlaintext(encryptedValue, e);
+        }
+
+        Keyring ring = keyring;
+        if (isGcmCandidate(data, ring)) {
+            Cipher cipher = GCM_CIPHER.acquire();
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, ring.gcmKeys.get(data[1] & 0xff),
+                        new GCMParameterSpec(TAG_BITS, data, HEADER_LENGTH, NONCE_LENGTH));
+                cipher.updateAAD(data, 0, HEADER_LENGTH);
+                byte[] plain = cipher.doFinal(data, HEADER_LENGTH + NONCE_LENGTH,
+                        data.length - HEADER_LENGTH - NONCE_LENGTH);
+                return new String(plain, StandardCharsets.UTF_8);
+            } catch (AEADBadTagException e) {
+                // Not ours after all: a legacy ECB row that happens to look like a header
+            } catch (Exception e) {
+                throw new IllegalStateException("Error decrypting string", e);
+            } finally {
+                GCM_CIPHER.release(cipher);
+            }
+        }
+
+        Exception lastFailure = null;
+        Cipher legacyCipher = LEGACY_CIPHER.acquire();
+        try {
+            for (SecretKeySpec legacyKey : ring.legacyKeys) {
+                try {
+                    legacyCipher.init(Cipher.DECRYPT_MODE, legacyKey);
+                    return new String(legacyCipher.doFinal(data));
+                } catch (Exception e) {
+                    lastFailure = e;
+                }
+            }
+        } finally {
+            LEGACY_CIPHER.release(legacyCipher);
+        }
+        return legacyPlaintext(encryptedValue, lastFailure);
+    }
+
+    /**
+     * @return true if the stored value is not version 1 under the current key
+     */
+    public static boolean needsReEncryption(String encryptedValue) {
+        if (encryptedValue == null) {
+            return false;
+        }
         try {
-            SecretKeySpec secretKeySpec = new SecretKeySpec(key.getBytes(), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, secretKeySpec);
-            byte[] decryptedBytes = cipher.doFinal(Base64.getDecoder().decode(encryptedValue));
-            return new String(decryptedBytes);
+            byte[] data = Base64.getDecoder().decode(encryptedValue);
+            Keyring ring = keyring;
+            return !(isGcmCandidate(data, ring) && (data[1] & 0xff) == ring.currentKeyId);
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static boolean isGcmCandidate(byte[] data, Keyring ring) {
+        return data.length >= MIN_GCM_LENGTH && data[0] == VERSION_GCM && ring.gcmKeys.containsKey(data[1] & 0xff);
+    }
+
+    private static String legacyPlaintext(String value, Exception cause) {
+        // Unencrypted rows from before encryption at rest hold a bare Base32 secret
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!((c >= 'A' && c <= 'Z') || (c >= '2' && c <= '7') || c == '=')) {
+                throw new IllegalStateException("Error decrypting string", cause);
+            }
+        }
+        return value;
+    }
+
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
         } catch (Exception e) {
-            // Fallback for unencrypted legacy rows if migrating existing DB
-            return encryptedValue;
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Keyring {
+        private final int currentKeyId;
+        private final Map<Integer, SecretKeySpec> gcmKeys = new HashMap<>();
+        private final List<SecretKeySpec> legacyKeys = new ArrayList<>();
+
+        private Keyring(int currentKeyId, Map<Integer, String> keys) {
+            this.currentKeyId = currentKeyId;
+            for (Map.Entry<Integer, String> entry : keys.entrySet()) {
+                gcmKeys.put(entry.getKey(), new SecretKeySpec(sha256(entry.getValue()), ALGORITHM));
+                legacyKeys.add(new SecretKeySpec(legacyKeyBytes(entry.getValue()), ALGORITHM));
+            }
+        }
+
+        private static byte[] sha256(String key) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // The pre-version-1 format padded or truncated the key to exactly 32 bytes
+        private static byte[] legacyKeyBytes(String encryptionKey) {
+            if (encryptionKey.length() < 32) {
+                encryptionKey = String.format("%1$-32s", encryptionKey).replace(' ', '0');
+            } else if (encryptionKey.length() > 32) {
+                encryptionKey = encryptionKey.substring(0, 32);
+            }
+            return encryptionKey.getBytes();
         }
     }
 }
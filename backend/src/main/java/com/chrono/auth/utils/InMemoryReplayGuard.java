@@ -0,0 +1,28 @@
+package com.chrono.auth.utils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replay state bucketed by expiry second. Each bucket is a concurrent set of
+ * service ids, so marking a code only contends on that set's bins and whole
+ * seconds expire by dropping their bucket.
+ */
+public class InMemoryReplayGuard implements ReplayGuard {
+
+    private final ConcurrentHashMap<Long, Set<Long>> usedByExpiry = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean markUsed(long serviceId, long validUntilSecond) {
+        Set<Long> used = usedByExpiry.get(validUntilSecond);
+        if (used == null) {
+            used = usedByExpiry.computeIfAbsent(validUntilSecond, s -> ConcurrentHashMap.newKeySet());
+        }
+        return used.add(serviceId);
+    }
+
+    @Override
+    public void purgeBefore(long epochSecond) {
+        usedByExpiry.keySet().removeIf(validUntil -> validUntil < epochSecond);
+    }
+}
@@ -0,0 +1,66 @@
+package com.chrono.auth.utils;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Reuses expensive, non-thread-safe objects such as {@code Mac}, {@code Cipher}
+ * or {@code MessageDigest}.
+ *
+ * Platform threads are long-lived pool threads, so each keeps its own instance
+ * in a ThreadLocal and {@link #release} is a no-op. Virtual threads are created
+ * per request and would build a fresh instance every time, so they borrow from
+ * a small shared free list instead. Callers must not block between acquire and
+ * release.
+ */
+public final class InstancePool<T> {
+
+    private final Supplier<T> factory;
+
+    private final ThreadLocal<T> local;
+
+    private final ConcurrentLinkedQueue<T> free = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger freeCount = new AtomicInteger();
+
+    private final int maxFree;
+
+    public InstancePool(Supplier<T> factory) {
+        // Borrowers never block while holding an instance, so roughly one per carrier is in use at a time
+        this(factory, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public InstancePool(Supplier<T> factory, int maxFree) {
+        this.factory = factory;
+        this.local = ThreadLocal.withInitial(factory);
+        this.maxFree = maxFree;
+    }
+
+    public T acquire() {
+        if (!VirtualThreads.isCurrentThreadVirtual()) {
+            return local.get();
+        }
+        T value = free.poll();
+        if (value == null) {
+            return factory.get();
+        }
+        freeCount.decrementAndGet();
+        return value;
+    }
+
+    public void release(T value) {
+        if (!VirtualThreads.isCurrentThreadVirtual()) {
+            return;
+        }
+        if (freeCount.incrementAndGet() <= maxFree) {
+            free.offer(value);
+        } else {
+            freeCount.decrementAndGet();
+        }
+    }
+
+    int freeCount() {
+        return freeCount.get();
+    }
+}
@@ -0,0 +1,116 @@
+package com.chrono.auth.utils;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Reads and writes {@code otpauth://totp/...} Key URIs, the format used by
+ * authenticator apps for import, export and QR codes.
+ */
+public final class OtpAuthUri {
+
+    private static final String PREFIX = "otpauth://";
+
+    public record Entry(String serviceName, String secret, TotpParameters parameters) {
+
+        public Entry(String serviceName, String secret) {
+            this(serviceName, secret, TotpParameters.DEFAULT);
+        }
+    }
+
+    private OtpAuthUri() {
+    }
+
+    public static boolean isOtpAuthUri(String value) {
+        return value.regionMatches(true, 0, PREFIX, 0, PREFIX.length());
+    }
+
+    /**
+     * @throws IllegalArgumentException with a user-facing message if the URI
+     *                                  is malformed or uses parameters this
+     *                                  server cannot generate codes for
+     */
+    public static Entry parse(String uri) {
+        if (!isOtpAuthUri(uri)) {
+            throw new IllegalArgumentException("Not an otpauth:// URI");
+        }
+        int typeEnd = uri.indexOf('/', PREFIX.length());
+        if (typeEnd < 0) {
+            throw new IllegalArgumentException("Missing label");
+        }
+        String type = uri.substring(PREFIX.length(), typeEnd).toLowerCase(Locale.ROOT);
+        if (!"totp".equals(type)) {
+            throw new IllegalArgumentException("Unsupported OTP type: " + type);
+        }
+
+        int queryStart = uri.indexOf('?', typeEnd);
+        String label = decode(uri.substring(typeEnd + 1, queryStart < 0 ? uri.length() : queryStart));
+        String secret = null;
+        String issuer = null;
+        String algorithm = null;
+        Integer digits = null;
+        Integer period = null;
+        if (queryStart >= 0) {
+            for (String parameter : uri.substring(queryStart + 1).split("&")) {
+                int separator = parameter.indexOf('=');
+                String name = (separator < 0 ? parameter : parameter.substring(0, separator)).toLowerCase(Locale.ROOT);
+                String value = separator < 0 ? "" : decode(parameter.substring(separator + 1));
+                switch (name) {
+                    case "secret" -> secret = value;
+                    case "issuer" -> issuer = value;
+                    case "digits" -> digits = parseInt(value, "digits");
+                    case "period" -> period = parseInt(value, "period");
+                    case "algorithm" -> algorithm = value;
+                    default -> {
+                        // Unknown parameters (image, color, ...) are ignored by authenticators too
+                    }
+                }
+            }
+        }
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("Missing secret");
+        }
+
+        String serviceName = label.isEmpty() && issuer != null ? issuer : label;
+        return new Entry(serviceName, secret, TotpParameters.of(algorithm, digits, period));
+    }
+
+    public static String format(String serviceName, String secret) {
+        return format(serviceName, secret, TotpParameters.DEFAULT);
+    }
+
+    // Default parameters are left out, as most issuers do
+    public static String format(String serviceName, String secret, TotpParameters parameters) {
+        StringBuilder uri = new StringBuilder(PREFIX).append("totp/").append(encode(serviceName))
+                .append("?secret=").append(secret);
+        if (parameters.algorithm() != TotpParameters.DEFAULT.algorithm()) {
+            uri.append("&algorithm=").append(parameters.algorithm().name());
+        }
+        if (parameters.digits() != TotpParameters.DEFAULT.digits()) {
+            uri.append("&digits=").append(parameters.digits());
+        }
+        if (parameters.period() != TotpParameters.DEFAULT.period()) {
+            uri.append("&period=").append(parameters.period());
+        }
+        return uri.toString();
+    }
+
+    private static int parseInt(String value, String parameter) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unsupported " + parameter + ": " + value);
+        }
+    }
+
+    private static String decode(String value) {
+        // A literal '+' in the path is a plus sign, not a space
+        return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
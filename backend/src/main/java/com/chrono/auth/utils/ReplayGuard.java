@@ -0,0 +1,20 @@
+package com.chrono.auth.utils;
+
+/**
+ * Remembers which codes have already been accepted so a verified code cannot
+ * be used twice. A code is identified by its service and the epoch second at
+ * which it leaves the drift window; that second is unique per time step for a
+ * given period, and once it has passed the entry can go.
+ */
+public interface ReplayGuard {
+
+    /**
+     * @return true if the code was not used before and is now marked as used
+     */
+    boolean markUsed(long serviceId, long validUntilSecond);
+
+    /**
+     * Forgets codes whose window closed before {@code epochSecond}.
+     */
+    void purgeBefore(long epochSecond);
+}
@@ -1,18 +0,0 @@
-package com.chrono.auth.utils;
-
-import jakarta.persistence.AttributeConverter;
-import jakarta.persistence.Converter;
-
-@Converter
-public class SecretKeyConverter implements AttributeConverter<String, String> {
-
-    @Override
-    public String convertToDatabaseColumn(String attribute) {
-        return EncryptionUtil.encrypt(attribute);
-    }
-
-    @Override
-    public String convertToEntityAttribute(String dbData) {
-        return EncryptionUtil.decrypt(dbData);
-    }
-}
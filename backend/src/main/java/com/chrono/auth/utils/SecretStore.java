@@ -0,0 +1,93 @@
+package com.chrono.auth.utils;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.codec.binary.Base32;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded cache of decoded TOTP key bytes keyed by service id and ciphertext,
+ * so a secret is decrypted and Base32-decoded once rather than on every code.
+ * A re-encrypted or replaced secret has a different ciphertext and therefore
+ * its own entry. Evicted keys are zeroed.
+ */
+@Component
+public class SecretStore {
+
+    private static final Base32 BASE32 = new Base32();
+
+    private final ConcurrentHashMap<Key, ZeroizableKey> keys = new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+
+    public SecretStore(@Value("${app.encryption.secret-cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int applyWithKey(long serviceId, String encryptedSecret, ToIntFunction<SecretKey> action) {
+        while (true) {
+            ZeroizableKey key = resolve(serviceId, encryptedSecret);
+            try {
+                return action.applyAsInt(key);
+            } catch (RuntimeException e) {
+                // Evicted while in use: resolve again
+                if (!key.isDestroyed()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public void evict(long serviceId) {
+        keys.entrySet().removeIf(entry -> {
+            if (entry.getKey().serviceId == serviceId) {
+                entry.getValue().destroy();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    @PreDestroy
+    public void clear() {
+        keys.entrySet().removeIf(entry -> {
+            entry.getValue().destroy();
+            return true;
+        });
+    }
+
+    private ZeroizableKey resolve(long serviceId, String encryptedSecret) {
+        Key cacheKey = new Key(serviceId, encryptedSecret);
+        ZeroizableKey key = keys.get(cacheKey);
+        if (key != null && !key.isDestroyed()) {
+            return key;
+        }
+
+        key = new ZeroizableKey(BASE32.decode(EncryptionUtil.decrypt(encryptedSecret)));
+        if (keys.size() >= maxEntries) {
+            // Cheap bound: live keys are decoded again on their next use
+            clear();
+        }
+        ZeroizableKey existing = keys.putIfAbsent(cacheKey, key);
+        if (existing != null && !existing.isDestroyed()) {
+            key.destroy();
+            return existing;
+        }
+        if (existing != null) {
+            keys.put(cacheKey, key);
+        }
+        return key;
+    }
+
+    // The full ciphertext, not its hash: a hash collision would hand out another secret's key
+    private record Key(long serviceId, String ciphertext) {
+    }
+}
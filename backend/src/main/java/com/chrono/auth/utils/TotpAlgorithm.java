@@ -0,0 +1,38 @@
+package com.chrono.auth.utils;
+
+import java.util.Locale;
+
+/**
+ * HMAC variants allowed by RFC 6238, named as in the otpauth:// algorithm
+ * parameter and stored that way in otp_services.algorithm.
+ */
+public enum TotpAlgorithm {
+
+    SHA1("HmacSHA1"),
+    SHA256("HmacSHA256"),
+    SHA512("HmacSHA512");
+
+    private final String macName;
+
+    TotpAlgorithm(String macName) {
+        this.macName = macName;
+    }
+
+    public String macName() {
+        return macName;
+    }
+
+    /**
+     * @throws IllegalArgumentException with a user-facing message for any
+     *                                  other algorithm
+     */
+    public static TotpAlgorithm parse(String value) {
+        String name = value.strip().toUpperCase(Locale.ROOT).replace("-", "");
+        for (TotpAlgorithm algorithm : values()) {
+            if (algorithm.name().equals(name)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported algorithm: " + value);
+    }
+}
@@ -0,0 +1,126 @@
+package com.chrono.auth.utils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates codes for many services at once.
+ *
+ * Services are grouped by (algorithm, period), since every member of a group
+ * shares the same time step and HMAC. Each group is cut into chunks; a chunk
+ * holds one pooled {@code Mac} for all of its secrets, and chunks run in
+ * parallel on a dedicated pool sized to the cores. Chunks share nothing but
+ * the key cache, so throughput grows with the number of cores. A batch that
+ * fits in one chunk runs on the calling thread.
+ */
+@Component
+public class TotpBatchGenerator implements MeterBinder {
+
+    private final SecretStore secretStore;
+
+    private final int chunkSize;
+
+    private final ForkJoinPool pool;
+
+    private volatile Timer batchTimer;
+
+    private volatile DistributionSummary batchSize;
+
+    public TotpBatchGenerator(SecretStore secretStore,
+            @Value("${app.totp.batch.chunk-size:256}") int chunkSize,
+            @Value("${app.totp.batch.parallelism:0}") int parallelism) {
+        this.secretStore = secretStore;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @return for each service, in input order, the codes of {@code steps}
+     *         consecutive time steps starting with the one containing
+     *         {@code epochMillis} in that service's period
+     */
+    public String[][] generate(List<? extends TotpSecret> services, long epochMillis, int steps) {
+        long start = System.nanoTime();
+        String[][] codes = new String[services.size()][];
+
+        Map<Group, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < services.size(); i++) {
+            TotpSecret service = services.get(i);
+            groups.computeIfAbsent(new Group(service.getAlgorithm(), service.getPeriod()), g -> new ArrayList<>())
+                    .add(i);
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+        for (Map.Entry<Group, List<Integer>> group : groups.entrySet()) {
+            List<Integer> members = group.getValue();
+            long step = epochMillis / (group.getKey().period * 1000L);
+            for (int from = 0; from < members.size(); from += chunkSize) {
+                chunks.add(new Chunk(group.getKey().algorithm, step,
+                        members.subList(from, Math.min(from + chunkSize, members.size()))));
+            }
+        }
+
+        if (chunks.size() <= 1) {
+            chunks.forEach(chunk -> run(chunk, services, steps, codes));
+        } else {
+            pool.submit(() -> chunks.parallelStream().forEach(chunk -> run(chunk, services, steps, codes))).join();
+        }
+
+        Timer timer = batchTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSize.record(services.size());
+        }
+        return codes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        batchSize = DistributionSummary.builder("chrono.totp.batch.size")
+                .description("Services per batch generation")
+                .register(registry);
+        batchTimer = Timer.builder("chrono.totp.batch")
+                .description("Batch code generation across all chunks")
+                .register(registry);
+    }
+
+    private void run(Chunk chunk, List<? extends TotpSecret> services, int steps, String[][] codes) {
+        try (TotpEngine.Session hmac = TotpUtils.engine().open(chunk.algorithm)) {
+            for (int index : chunk.members) {
+                TotpSecret service = services.get(index);
+                int digits = service.getDigits();
+                String[] serviceCodes = new String[steps];
+                for (int s = 0; s < steps; s++) {
+                    long counter = chunk.step + s;
+                    int otp = secretStore.applyWithKey(service.getId(), service.getEncryptedSecretKey(),
+                            key -> hmac.generateCode(key, counter, digits));
+                    serviceCodes[s] = hmac.format(otp, digits);
+                }
+                codes[index] = serviceCodes;
+            }
+        }
+    }
+
+    private record Group(TotpAlgorithm algorithm, int period) {
+    }
+
+    private record Chunk(TotpAlgorithm algorithm, long step, List<Integer> members) {
+    }
+}
@@ -0,0 +1,313 @@
+package com.chrono.auth.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches generated codes per (service id, period, time step).
+ *
+ * Only the current and next windows of each period are held; older windows
+ * are dropped as soon as the clock rolls past them. Shortly before each
+ * boundary the next window is precomputed for services that were read
+ * recently. Lists of services are served from the cache where possible and
+ * the misses generated together by {@link TotpBatchGenerator}.
+ */
+@Component
+public class TotpCodeCache implements MeterBinder {
+
+    public record Codes(String code, String nextCode, long validUntil) {
+    }
+
+    private final Clock clock;
+
+    private final SecretStore secretStore;
+
+    private final TotpBatchGenerator batchGenerator;
+
+    private final int maxEntriesPerWindow;
+
+    private final long precomputeLeadMillis;
+
+    private final ConcurrentHashMap<Window, ConcurrentHashMap<Long, String>> windows = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, ActiveService> activeServices = new ConcurrentHashMap<>();
+
+    // Periods are whole seconds, so no window can expire between two checks
+    private final AtomicLong currentSecond = new AtomicLong(Long.MIN_VALUE);
+
+    private final AtomicLong currentStep = new AtomicLong(Long.MIN_VALUE);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder precomputed = new LongAdder();
+
+    private volatile Timer generateTimer;
+
+    public TotpCodeCache(Clock clock, SecretStore secretStore, TotpBatchGenerator batchGenerator,
+            @Value("${app.totp.cache.max-entries:10000}") int maxEntriesPerWindow,
+            @Value("${app.totp.cache.precompute-lead-ms:2000}") long precomputeLeadMillis) {
+        this.clock = clock;
+        this.secretStore = secretStore;
+        this.batchGenerator = batchGenerator;
+        this.maxEntriesPerWindow = maxEntriesPerWindow;
+        this.precomputeLeadMillis = precomputeLeadMillis;
+    }
+
+    public long currentTimeStep() {
+        return TotpUtils.timeStep(clock.millis());
+    }
+
+    public String getCode(Long serviceId, String encryptedSecret) {
+        return getCode(serviceId, encryptedSecret, TotpParameters.DEFAULT);
+    }
+
+    public String getCode(Long serviceId, String encryptedSecret, long step) {
+        return getCode(serviceId, encryptedSecret, TotpParameters.DEFAULT, step);
+    }
+
+    public String getCode(Long serviceId, String encryptedSecret, TotpParameters parameters) {
+        return getCode(serviceId, encryptedSecret, parameters, parameters.timeStep(clock.millis()));
+    }
+
+    public String getCode(Long serviceId, String encryptedSecret, TotpParameters parameters, long step) {
+        long millis = clock.millis();
+        rollOver(millis);
+        long now = parameters.timeStep(millis);
+        activeServices.put(serviceId, new ActiveService(serviceId, encryptedSecret, parameters, now));
+
+        // Only the current and next windows are worth keeping
+        if (step != now && step != now + 1) {
+            misses.increment();
+            return generate(serviceId, encryptedSecret, parameters, step);
+        }
+
+        ConcurrentHashMap<Long, String> window = window(parameters.period(), step);
+        String code = window.get(serviceId);
+        if (code != null) {
+            hits.increment();
+            return code;
+        }
+
+        misses.increment();
+        code = generate(serviceId, encryptedSecret, parameters, step);
+        if (window.size() < maxEntriesPerWindow) {
+            window.putIfAbsent(serviceId, code);
+        }
+        return code;
+    }
+
+    /**
+     * Current and next codes for every service, in input order. Cached codes
+     * are reused; the rest are generated as one batch.
+     */
+    public List<Codes> getCodes(List<? extends TotpSecret> services) {
+        long millis = clock.millis();
+        rollOver(millis);
+
+        Codes[] result = new Codes[services.size()];
+        List<TotpSecret> missing = new ArrayList<>();
+        List<Integer> missingAt = new ArrayList<>();
+        for (int i = 0; i < result.length; i++) {
+            TotpSecret service = services.get(i);
+            TotpParameters parameters = service.parameters();
+            long step = parameters.timeStep(millis);
+            activeServices.put(service.getId(),
+                    new ActiveService(service.getId(), service.getEncryptedSecretKey(), parameters, step));
+
+            String code = window(parameters.period(), step).get(service.getId());
+            String nextCode = code != null ? window(parameters.period(), step + 1).get(service.getId()) : null;
+            if (nextCode != null) {
+                hits.add(2);
+                result[i] = new Codes(code, nextCode, parameters.validUntil(step));
+            } else {
+                missing.add(service);
+                missingAt.add(i);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            misses.add(2L * missing.size());
+            String[][] generated = batchGenerator.generate(missing, millis, 2);
+            for (int m = 0; m < missing.size(); m++) {
+                TotpSecret service = missing.get(m);
+                TotpParameters parameters = service.parameters();
+                long step = parameters.timeStep(millis);
+                store(parameters.period(), step, service.getId(), generated[m][0]);
+                store(parameters.period(), step + 1, service.getId(), generated[m][1]);
+                result[missingAt.get(m)] = new Codes(generated[m][0], generated[m][1], parameters.validUntil(step));
+            }
+        }
+        return Arrays.asList(result);
+    }
+
+    public void evictService(Long serviceId) {
+        activeServices.remove(serviceId);
+        secretStore.evict(serviceId);
+        for (ConcurrentHashMap<Long, String> window : windows.values()) {
+            if (window.remove(serviceId) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.totp.cache.precompute-interval-ms:500}")
+    public void precomputeNextWindow() {
+        long millis = clock.millis();
+        rollOver(millis);
+
+        List<ActiveService> due = new ArrayList<>();
+        for (ActiveService service : activeServices.values()) {
+            TotpParameters parameters = service.parameters;
+            long step = parameters.timeStep(millis);
+            if (parameters.validUntil(step) - millis > precomputeLeadMillis) {
+                continue;
+            }
+            ConcurrentHashMap<Long, String> window = window(parameters.period(), step + 1);
+            if (window.size() < maxEntriesPerWindow && !window.containsKey(service.id)) {
+                due.add(service);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // Every due service is within the lead of its boundary, so this instant is in its next step
+        String[][] generated = batchGenerator.generate(due, millis + precomputeLeadMillis, 1);
+        for (int i = 0; i < due.size(); i++) {
+            ActiveService service = due.get(i);
+            TotpParameters parameters = service.parameters;
+            if (store(parameters.period(), parameters.timeStep(millis) + 1, service.id, generated[i][0])) {
+                precomputed.increment();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        generateTimer = Timer.builder("chrono.totp.generate")
+                .description("Code generation on a cache miss: key lookup, HMAC and formatting")
+                .register(registry);
+        FunctionCounter.builder("chrono.totp.cache.requests", hits, LongAdder::sum).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("chrono.totp.cache.requests", misses, LongAdder::sum).tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("chrono.totp.cache.precomputed", precomputed, LongAdder::sum).register(registry);
+        Gauge.builder("chrono.totp.cache.active.services", activeServices, Map::size).register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        int size = 0;
+        for (ConcurrentHashMap<Long, String> window : windows.values()) {
+            size += window.size();
+        }
+        return Map.of(
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "evictions", evictions.sum(),
+                "precomputed", precomputed.sum(),
+                "size", size,
+                "activeServices", activeServices.size(),
+                "decodedKeys", secretStore.size(),
+                "maxEntriesPerWindow", maxEntriesPerWindow);
+    }
+
+    private String generate(long serviceId, String encryptedSecret, TotpParameters parameters, long step) {
+        long start = System.nanoTime();
+        TotpEngine engine = TotpUtils.engine();
+        int otp = secretStore.applyWithKey(serviceId, encryptedSecret,
+                key -> engine.generateCode(key, step, parameters.digits(), parameters.algorithm()));
+        String code = engine.format(otp, parameters.digits());
+        Timer timer = generateTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return code;
+    }
+
+    private ConcurrentHashMap<Long, String> window(int period, long step) {
+        return windows.computeIfAbsent(new Window(period, step), w -> new ConcurrentHashMap<>());
+    }
+
+    private boolean store(int period, long step, Long serviceId, String code) {
+        ConcurrentHashMap<Long, String> window = window(period, step);
+        return window.size() < maxEntriesPerWindow && window.putIfAbsent(serviceId, code) == null;
+    }
+
+    private void rollOver(long millis) {
+        long second = millis / 1000;
+        long previous = currentSecond.get();
+        if (previous >= second || !currentSecond.compareAndSet(previous, second)) {
+            return;
+        }
+
+        windows.entrySet().removeIf(entry -> {
+            Window window = entry.getKey();
+            if (window.step < millis / (window.period * 1000L)) {
+                evictions.add(entry.getValue().size());
+                return true;
+            }
+            return false;
+        });
+
+        long step = TotpUtils.timeStep(millis);
+        long previousStep = currentStep.get();
+        if (previousStep < step && currentStep.compareAndSet(previousStep, step)) {
+            // Services not read during their last two windows are no longer precomputed
+            activeServices.values().removeIf(service -> service.lastStep < service.parameters.timeStep(millis) - 1);
+        }
+    }
+
+    private record Window(int period, long step) {
+    }
+
+    private record ActiveService(Long id, String encryptedSecret, TotpParameters parameters, long lastStep)
+            implements TotpSecret {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getEncryptedSecretKey() {
+            return encryptedSecret;
+        }
+
+        @Override
+        public TotpAlgorithm getAlgorithm() {
+            return parameters.algorithm();
+        }
+
+        @Override
+        public int getDigits() {
+            return parameters.digits();
+        }
+
+        @Override
+        public int getPeriod() {
+            return parameters.period();
+        }
+
+        @Override
+        public TotpParameters parameters() {
+            return parameters;
+        }
+    }
+}
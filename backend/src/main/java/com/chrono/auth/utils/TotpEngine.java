@@ -0,0 +1,180 @@
+package com.chrono.auth.utils;
+
+import org.apache.commons.codec.binary.Base32;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RFC 6238 TOTP generator that avoids per-call allocation on the hot path.
+ *
+ * {@link Mac} instances with their counter, hash and digit buffers are reused
+ * per thread and algorithm (pooled on virtual threads), and decoded Base32 keys
+ * are cached so a secret is only decoded once. Batches hold one instance for a
+ * whole run of codes through a {@link Session}.
+ */
+public final class TotpEngine {
+
+    private static final int[] DIGITS_POWER = { 1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000 };
+
+    private static final Base32 BASE32 = new Base32();
+
+    private static final Map<TotpAlgorithm, InstancePool<State>> STATE = new EnumMap<>(TotpAlgorithm.class);
+
+    static {
+        for (TotpAlgorithm algorithm : TotpAlgorithm.values()) {
+            STATE.put(algorithm, new InstancePool<>(() -> new State(algorithm)));
+        }
+    }
+
+    private final ConcurrentHashMap<String, SecretKeySpec> keyCache = new ConcurrentHashMap<>();
+
+    private final int maxCachedKeys;
+
+    public TotpEngine(int maxCachedKeys) {
+        this.maxCachedKeys = maxCachedKeys;
+    }
+
+    public String generate(String base32Secret, long counter, int digits) {
+        return format(generateCode(base32Secret, counter, digits), digits);
+    }
+
+    public String generate(String base32Secret, long counter, int digits, TotpAlgorithm algorithm) {
+        return format(generateCode(resolveKey(base32Secret), counter, digits, algorithm), digits);
+    }
+
+    public int generateCode(String base32Secret, long counter, int digits) {
+        return generateCode(resolveKey(base32Secret), counter, digits);
+    }
+
+    public int generateCode(SecretKey key, long counter, int digits) {
+        return generateCode(key, counter, digits, TotpAlgorithm.SHA1);
+    }
+
+    public int generateCode(SecretKey key, long counter, int digits, TotpAlgorithm algorithm) {
+        InstancePool<State> pool = STATE.get(algorithm);
+        State state = pool.acquire();
+        try {
+            return state.generate(key, counter, digits);
+        } finally {
+            pool.release(state);
+        }
+    }
+
+    public String format(int otp, int digits) {
+        InstancePool<State> pool = STATE.get(TotpAlgorithm.SHA1);
+        State state = pool.acquire();
+        try {
+            return state.format(otp, digits);
+        } finally {
+            pool.release(state);
+        }
+    }
+
+    /**
+     * Holds one {@link Mac} for a run of codes; must be closed on the thread
+     * that opened it, without blocking in between.
+     */
+    public Session open(TotpAlgorithm algorithm) {
+        return new Session(STATE.get(algorithm));
+    }
+
+    public SecretKeySpec resolveKey(String base32Secret) {
+        SecretKeySpec key = keyCache.get(base32Secret);
+        if (key != null) {
+            return key;
+        }
+        key = new SecretKeySpec(BASE32.decode(base32Secret), "RAW");
+        if (keyCache.size() >= maxCachedKeys) {
+            // Cheap bound: secrets are re-decoded on the next call after a reset
+            keyCache.clear();
+        }
+        keyCache.put(base32Secret, key);
+        return key;
+    }
+
+    public void evictKey(String base32Secret) {
+        keyCache.remove(base32Secret);
+    }
+
+    public static final class Session implements AutoCloseable {
+
+        private final InstancePool<State> pool;
+
+        private final State state;
+
+        private Session(InstancePool<State> pool) {
+            this.pool = pool;
+            this.state = pool.acquire();
+        }
+
+        public int generateCode(SecretKey key, long counter, int digits) {
+            return state.generate(key, counter, digits);
+        }
+
+        public String format(int otp, int digits) {
+            return state.format(otp, digits);
+        }
+
+        @Override
+        public void close() {
+            pool.release(state);
+        }
+    }
+
+    private static final class State {
+        private final Mac hmac;
+        private final byte[] counter = new byte[8];
+        private final byte[] hash;
+        private final char[] digits = new char[DIGITS_POWER.length];
+
+        private State(TotpAlgorithm algorithm) {
+            try {
+                hmac = Mac.getInstance(algorithm.macName());
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            hash = new byte[hmac.getMacLength()];
+        }
+
+        private int generate(SecretKey key, long counter, int digits) {
+            byte[] msg = this.counter;
+            for (int i = 7; i >= 0; i--) {
+                msg[i] = (byte) counter;
+                counter >>>= 8;
+            }
+
+            try {
+                hmac.init(key);
+                hmac.update(msg);
+                hmac.doFinal(hash, 0);
+            } catch (InvalidKeyException | ShortBufferException e) {
+                throw new RuntimeException(e);
+            }
+
+            int offset = hash[hash.length - 1] & 0xf;
+            int binary = ((hash[offset] & 0x7f) << 24) |
+                    ((hash[offset + 1] & 0xff) << 16) |
+                    ((hash[offset + 2] & 0xff) << 8) |
+                    (hash[offset + 3] & 0xff);
+
+            return binary % DIGITS_POWER[digits];
+        }
+
+        private String format(int otp, int digits) {
+            char[] buf = this.digits;
+            for (int i = digits - 1; i >= 0; i--) {
+                buf[i] = (char) ('0' + otp % 10);
+                otp /= 10;
+            }
+            return new String(buf, 0, digits);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.chrono.auth.utils;
+
+/**
+ * How a service's codes are generated: HMAC algorithm, code length and time
+ * step length in seconds. Most issuers use {@link #DEFAULT}.
+ */
+public record TotpParameters(TotpAlgorithm algorithm, int digits, int period) {
+
+    public static final int MIN_DIGITS = 6;
+
+    public static final int MAX_DIGITS = 8;
+
+    public static final int MIN_PERIOD = 10;
+
+    public static final int MAX_PERIOD = 300;
+
+    public static final TotpParameters DEFAULT = new TotpParameters(TotpAlgorithm.SHA1, TotpUtils.DEFAULT_DIGITS,
+            (int) (TotpUtils.TIME_STEP_MILLIS / 1000));
+
+    public TotpParameters {
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Missing algorithm");
+        }
+        if (digits < MIN_DIGITS || digits > MAX_DIGITS) {
+            throw new IllegalArgumentException("Unsupported digits: " + digits);
+        }
+        if (period < MIN_PERIOD || period > MAX_PERIOD) {
+            throw new IllegalArgumentException("Unsupported period: " + period);
+        }
+    }
+
+    /**
+     * Fills in defaults for missing values.
+     *
+     * @throws IllegalArgumentException with a user-facing message for values
+     *                                  this server cannot generate codes for
+     */
+    public static TotpParameters of(String algorithm, Integer digits, Integer period) {
+        if (algorithm == null && digits == null && period == null) {
+            return DEFAULT;
+        }
+        return new TotpParameters(
+                algorithm == null || algorithm.isBlank() ? DEFAULT.algorithm : TotpAlgorithm.parse(algorithm),
+                digits == null ? DEFAULT.digits : digits,
+                period == null ? DEFAULT.period : period);
+    }
+
+    public long periodMillis() {
+        return period * 1000L;
+    }
+
+    public long timeStep(long epochMillis) {
+        return epochMillis / periodMillis();
+    }
+
+    public long validUntil(long step) {
+        return (step + 1) * periodMillis();
+    }
+
+    public boolean isDefault() {
+        return equals(DEFAULT);
+    }
+}
@@ -0,0 +1,22 @@
+package com.chrono.auth.utils;
+
+/**
+ * A service whose codes can be generated: implemented by the entity and by
+ * the repository projections that feed batch generation.
+ */
+public interface TotpSecret {
+
+    Long getId();
+
+    String getEncryptedSecretKey();
+
+    TotpAlgorithm getAlgorithm();
+
+    int getDigits();
+
+    int getPeriod();
+
+    default TotpParameters parameters() {
+        return new TotpParameters(getAlgorithm(), getDigits(), getPeriod());
+    }
+}
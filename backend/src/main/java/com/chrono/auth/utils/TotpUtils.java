@@ -1,66 +1,41 @@
 package com.chrono.auth.utils;
 
 import org.apache.commons.codec.binary.Base32;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 
 public class TotpUtils {
 
-    private static final int[] DIGITS_POWER = { 1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000 };
+    public static final long TIME_STEP_MILLIS = 30000L;
 
-    public static String generateTOTP(String key, String time, String returnDigits) {
-        int codeDigits = Integer.parseInt(returnDigits);
-        String result = null;
-
-        while (time.length() < 16) {
-            time = "0" + time;
-        }
+    public static final int DEFAULT_DIGITS = 6;
 
-        byte[] msg = hexStr2Bytes(time);
-        byte[] k = new Base32().decode(key);
+    private static final TotpEngine ENGINE = new TotpEngine(4096);
 
-        byte[] hash = hmac_sha("HmacSHA1", k, msg);
+    public static String generateTOTP(String key, String time, String returnDigits) {
+        return ENGINE.generate(key, Long.parseUnsignedLong(time, 16), Integer.parseInt(returnDigits));
+    }
 
-        int offset = hash[hash.length - 1] & 0xf;
-        int binary = ((hash[offset] & 0x7f) << 24) |
-                ((hash[offset + 1] & 0xff) << 16) |
-                ((hash[offset + 2] & 0xff) << 8) |
-                (hash[offset + 3] & 0xff);
+    public static String getTOTPCode(String secretKey) {
+        return getTOTPCode(secretKey, currentTimeStep());
+    }
 
-        int otp = binary % DIGITS_POWER[codeDigits];
+    public static String getTOTPCode(String secretKey, long timeStep) {
+        return ENGINE.generate(secretKey, timeStep, DEFAULT_DIGITS);
+    }
 
-        result = Integer.toString(otp);
-        while (result.length() < codeDigits) {
-            result = "0" + result;
-        }
-        return result;
+    public static String getTOTPCode(String secretKey, long timeStep, TotpParameters parameters) {
+        return ENGINE.generate(secretKey, timeStep, parameters.digits(), parameters.algorithm());
     }
 
-    public static String getTOTPCode(String secretKey) {
-        long timeWindow = System.currentTimeMillis() / 30000L;
-        String timeStr = Long.toHexString(timeWindow).toUpperCase();
-        return generateTOTP(secretKey, timeStr, "6");
+    public static long currentTimeStep() {
+        return timeStep(System.currentTimeMillis());
     }
 
-    private static byte[] hmac_sha(String crypto, byte[] keyBytes, byte[] text) {
-        try {
-            Mac hmac = Mac.getInstance(crypto);
-            SecretKeySpec macKey = new SecretKeySpec(keyBytes, "RAW");
-            hmac.init(macKey);
-            return hmac.doFinal(text);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new RuntimeException(e);
-        }
+    public static long timeStep(long epochMillis) {
+        return epochMillis / TIME_STEP_MILLIS;
     }
 
-    private static byte[] hexStr2Bytes(String hex) {
-        byte[] bArray = new byte[hex.length() / 2];
-        for (int i = 0; i < bArray.length; i++) {
-            bArray[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
-        }
-        return bArray;
+    public static TotpEngine engine() {
+        return ENGINE;
     }
 
     public static boolean isValidSecret(String secret) {
@@ -0,0 +1,95 @@
+package com.chrono.auth.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.time.Clock;
+
+/**
+ * Verifies submitted codes against ±driftSteps time steps around now and
+ * rejects a step that was already accepted for the same service.
+ *
+ * Accepted steps are recorded as the epoch second after which they fall out
+ * of the drift window, which is unique per step for a service's period and
+ * lets one purge cutoff serve every period.
+ */
+@Component
+public class TotpVerifier {
+
+    public enum Result {
+        VALID, INVALID, REPLAYED
+    }
+
+    private final Clock clock;
+
+    private final ReplayGuard replayGuard;
+
+    private final SecretStore secretStore;
+
+    private final int driftSteps;
+
+    public TotpVerifier(Clock clock, ReplayGuard replayGuard, SecretStore secretStore,
+            @Value("${app.totp.verify.drift-steps:1}") int driftSteps) {
+        this.clock = clock;
+        this.replayGuard = replayGuard;
+        this.secretStore = secretStore;
+        this.driftSteps = driftSteps;
+    }
+
+    public Result verify(long serviceId, String encryptedSecret, String code) {
+        return verify(serviceId, encryptedSecret, TotpParameters.DEFAULT, code);
+    }
+
+    public Result verify(long serviceId, String encryptedSecret, TotpParameters parameters, String code) {
+        int submitted = parseCode(code, parameters.digits());
+        if (submitted < 0) {
+            return Result.INVALID;
+        }
+
+        long now = parameters.timeStep(clock.millis());
+        int matchedOffset = secretStore.applyWithKey(serviceId, encryptedSecret,
+                key -> findMatchingOffset(key, parameters, now, submitted));
+
+        if (matchedOffset < 0) {
+            return Result.INVALID;
+        }
+        long matchedStep = now - driftSteps + matchedOffset;
+        long acceptableUntil = parameters.validUntil(matchedStep + driftSteps) / 1000;
+        return replayGuard.markUsed(serviceId, acceptableUntil) ? Result.VALID : Result.REPLAYED;
+    }
+
+    @Scheduled(fixedDelayString = "${app.totp.verify.purge-interval-ms:30000}")
+    public void purgeExpired() {
+        replayGuard.purgeBefore(clock.millis() / 1000);
+    }
+
+    private int findMatchingOffset(SecretKey key, TotpParameters parameters, long now, int submitted) {
+        TotpEngine engine = TotpUtils.engine();
+        // Check every step in the window so timing does not reveal which one matched
+        int matched = -1;
+        for (int offset = 0; offset <= 2 * driftSteps; offset++) {
+            if (engine.generateCode(key, now - driftSteps + offset, parameters.digits(), parameters.algorithm())
+                    == submitted && matched < 0) {
+                matched = offset;
+            }
+        }
+        return matched;
+    }
+
+    private static int parseCode(String code, int digits) {
+        if (code == null || code.length() != digits) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
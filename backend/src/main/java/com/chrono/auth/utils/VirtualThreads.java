@@ -0,0 +1,67 @@
+package com.chrono.auth.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual-thread helpers that still compile for Java 17.
+ *
+ * The APIs only exist on Java 21+, so they are looked up reflectively once;
+ * on older runtimes every thread reports as a platform thread.
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle IS_VIRTUAL = find(Thread.class, "isVirtual",
+            MethodType.methodType(boolean.class), false);
+
+    private static final MethodHandle NEW_PER_TASK_EXECUTOR = find(Executors.class, "newVirtualThreadPerTaskExecutor",
+            MethodType.methodType(ExecutorService.class), true);
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return IS_VIRTUAL != null && NEW_PER_TASK_EXECUTOR != null;
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static boolean isCurrentThreadVirtual() {
+        return isVirtual(Thread.currentThread());
+    }
+
+    /**
+     * @throws UnsupportedOperationException on runtimes older than Java 21
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (NEW_PER_TASK_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+        }
+        try {
+            return (ExecutorService) NEW_PER_TASK_EXECUTOR.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle find(Class<?> owner, String name, MethodType type, boolean isStatic) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            return isStatic ? lookup.findStatic(owner, name, type) : lookup.findVirtual(owner, name, type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
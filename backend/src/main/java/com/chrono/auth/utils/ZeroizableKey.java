@@ -0,0 +1,53 @@
+package com.chrono.auth.utils;
+
+import javax.crypto.SecretKey;
+import java.util.Arrays;
+
+/**
+ * Raw HMAC key whose bytes can be wiped when it leaves the cache.
+ *
+ * {@link #getEncoded()} hands out a copy (the JCE zeroes what it receives); a
+ * copy taken while the key is being destroyed is rejected rather than used.
+ */
+public final class ZeroizableKey implements SecretKey {
+
+    private final byte[] keyBytes;
+
+    private volatile boolean destroyed;
+
+    // Takes ownership of keyBytes
+    public ZeroizableKey(byte[] keyBytes) {
+        this.keyBytes = keyBytes;
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return "RAW";
+    }
+
+    @Override
+    public String getFormat() {
+        return "RAW";
+    }
+
+    @Override
+    public byte[] getEncoded() {
+        byte[] copy = keyBytes.clone();
+        if (destroyed) {
+            Arrays.fill(copy, (byte) 0);
+            throw new IllegalStateException("Key has been destroyed");
+        }
+        return copy;
+    }
+
+    @Override
+    public void destroy() {
+        destroyed = true;
+        Arrays.fill(keyBytes, (byte) 0);
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+}
@@ -0,0 +1,13 @@
+-- Accepted (service, time step) pairs for replay protection when verification
+-- runs with replay-store=database; rows older than the drift window are purged.
+-- Kept out of V1: databases baselined at V1 never run it, but do run this.
+-- IF NOT EXISTS covers databases whose V1 still created the table.
+
+CREATE TABLE IF NOT EXISTS otp_used_steps (
+    service_id BIGINT NOT NULL,
+    time_step BIGINT NOT NULL,
+    used_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (service_id, time_step)
+);
+
+CREATE INDEX IF NOT EXISTS idx_otp_used_steps_time_step ON otp_used_steps (time_step);
@@ -0,0 +1,20 @@
+-- Schema as previously created by init-scripts/init.sql plus Hibernate's ddl-auto update.
+-- Existing databases are baselined at this version instead (spring.flyway.baseline-on-migrate).
+-- activity_logs is created and partitioned by ActivityLogPartitionManager, not here.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(100) NOT NULL,
+    created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    role VARCHAR(20) NOT NULL DEFAULT 'ROLE_USER',
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE otp_services (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    service_name VARCHAR(100) NOT NULL,
+    secret_key VARCHAR(255) NOT NULL,
+    created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    CONSTRAINT fk_otp_services_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
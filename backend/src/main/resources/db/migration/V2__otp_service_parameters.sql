@@ -0,0 +1,6 @@
+-- Per-service TOTP parameters from the issuer's otpauth:// URI; existing rows keep the
+-- defaults every service used before (HMAC-SHA1, 6 digits, 30 seconds)
+
+ALTER TABLE otp_services ADD COLUMN algorithm VARCHAR(10) NOT NULL DEFAULT 'SHA1';
+ALTER TABLE otp_services ADD COLUMN digits INT NOT NULL DEFAULT 6;
+ALTER TABLE otp_services ADD COLUMN period_seconds INT NOT NULL DEFAULT 30;
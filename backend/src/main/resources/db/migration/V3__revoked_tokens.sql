@@ -0,0 +1,12 @@
+-- Revoked JWTs by their jti claim. Rows are only inserted and purged once the token has
+-- expired, so the auto-increment id doubles as the change sequence replicas poll from.
+
+CREATE TABLE revoked_tokens (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    jti VARCHAR(64) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    revoked_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    CONSTRAINT uk_revoked_tokens_jti UNIQUE (jti)
+);
+
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
@@ -0,0 +1,13 @@
+-- Replay entries are keyed by the epoch second their code leaves the drift
+-- window, not by a 30-second step number, since services may use other
+-- periods. The column is renamed to say so. Rows still holding a step number
+-- (below 10^9, i.e. before 2001 as an epoch second) only protect codes that
+-- have expired by now, so they are dropped.
+
+DELETE FROM otp_used_steps WHERE time_step < 1000000000;
+
+DROP INDEX idx_otp_used_steps_time_step ON otp_used_steps;
+
+ALTER TABLE otp_used_steps RENAME COLUMN time_step TO valid_until;
+
+CREATE INDEX idx_otp_used_steps_valid_until ON otp_used_steps (valid_until);
@@ -0,0 +1,183 @@
+package com.chrono.auth.config;
+
+import com.chrono.auth.utils.MutableClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Two embedded H2 databases stand in for primary and replica. The replica is
+ * deliberately never synchronized, so the rows a query returns show which
+ * one served it.
+ */
+class ReplicaRoutingDataSourceTest {
+
+	private static final long READ_YOUR_WRITES_MS = 5_000;
+
+	private static final long RETRY_AFTER_MS = 10_000;
+
+	private final MutableClock clock = new MutableClock(1_800_000_000_000L);
+
+	private DriverManagerDataSource primary;
+
+	private DriverManagerDataSource replica;
+
+	private ReplicaRoutingDataSource router;
+
+	private JdbcTemplate jdbc;
+
+	private TransactionTemplate writeTx;
+
+	private TransactionTemplate readTx;
+
+	@BeforeEach
+	void setUp() {
+		primary = h2("routing_primary");
+		replica = h2("routing_replica");
+		for (DataSource dataSource : List.of(primary, replica)) {
+			JdbcTemplate setup = new JdbcTemplate(dataSource);
+			setup.execute("CREATE TABLE otp_services (id BIGINT PRIMARY KEY, service_name VARCHAR(100))");
+		}
+		new JdbcTemplate(replica).update("INSERT INTO otp_services VALUES (1, 'replicated')");
+		new JdbcTemplate(primary).update("INSERT INTO otp_services VALUES (1, 'replicated')");
+
+		router = new ReplicaRoutingDataSource(primary, replica, clock, READ_YOUR_WRITES_MS, RETRY_AFTER_MS, 100);
+		LazyConnectionDataSourceProxy routed = new LazyConnectionDataSourceProxy(primary);
+		routed.setReadOnlyDataSource(router);
+
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routed);
+		transactionManager.addListener(router);
+		jdbc = new JdbcTemplate(routed);
+		writeTx = new TransactionTemplate(transactionManager);
+		readTx = new TransactionTemplate(transactionManager);
+		readTx.setReadOnly(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		for (DataSource dataSource : List.of(primary, replica)) {
+			new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS");
+		}
+	}
+
+	@Test
+	void sendsReadOnlyTransactionsToTheReplicaAndEverythingElseToThePrimary() {
+		writeTx.executeWithoutResult(status -> jdbc.update("INSERT INTO otp_services VALUES (2, 'added')"));
+
+		// The write has not reached the replica
+		assertEquals(List.of("replicated"), readTx.execute(status -> names()));
+		assertEquals(List.of("replicated", "added"), writeTx.execute(status -> names()));
+		// Outside a transaction: primary
+		assertEquals(List.of("replicated", "added"), names());
+		assertEquals(1L, router.stats().get("replicaReads"));
+	}
+
+	@Test
+	void keepsAWritersReadsOnThePrimaryUntilTheReplicaCanHaveCaughtUp() {
+		login("alice");
+		writeTx.executeWithoutResult(status -> jdbc.update("INSERT INTO otp_services VALUES (2, 'added')"));
+
+		assertEquals(List.of("replicated", "added"), readTx.execute(status -> names()));
+		login("bob");
+		assertEquals(List.of("replicated"), readTx.execute(status -> names()));
+
+		login("alice");
+		clock.millis += READ_YOUR_WRITES_MS;
+		assertEquals(List.of("replicated"), readTx.execute(status -> names()));
+		assertEquals(1L, router.stats().get("readYourWritesReads"));
+		assertEquals(2L, router.stats().get("replicaReads"));
+	}
+
+	@Test
+	void ignoresRolledBackAndReadOnlyTransactions() {
+		login("alice");
+		writeTx.executeWithoutResult(status -> {
+			jdbc.update("INSERT INTO otp_services VALUES (2, 'added')");
+			status.setRollbackOnly();
+		});
+		readTx.executeWithoutResult(status -> names());
+
+		assertEquals(0, router.stats().get("trackedWriters"));
+		assertEquals(1L, router.stats().get("replicaReads"));
+	}
+
+	@Test
+	void dropsTheOldestWritersFirstOnceTheBoundIsReached() throws Exception {
+		ReplicaRoutingDataSource bounded = new ReplicaRoutingDataSource(primary, replica, clock,
+				READ_YOUR_WRITES_MS, RETRY_AFTER_MS, 2);
+		TransactionExecution write = mock(TransactionExecution.class);
+		for (String user : List.of("alice", "bob", "alice", "carol")) {
+			login(user);
+			bounded.afterCommit(write, null);
+			clock.millis += 1;
+		}
+
+		// alice wrote again after bob, so bob is now the oldest writer
+		assertEquals(2, bounded.stats().get("trackedWriters"));
+		assertEquals(1L, bounded.stats().get("evictedWriters"));
+		for (String user : List.of("alice", "bob", "carol")) {
+			login(user);
+			bounded.getConnection().close();
+		}
+		assertEquals(2L, bounded.stats().get("readYourWritesReads"));
+		assertEquals(1L, bounded.stats().get("replicaReads"));
+
+		// Past the window every entry expires on the next write
+		clock.millis += READ_YOUR_WRITES_MS;
+		bounded.afterCommit(write, null);
+		assertEquals(1, bounded.stats().get("trackedWriters"));
+	}
+
+	@Test
+	void fallsBackToThePrimaryWhileTheReplicaIsDown() {
+		ReplicaRoutingDataSource down = new ReplicaRoutingDataSource(primary,
+				new DriverManagerDataSource("jdbc:h2:tcp://127.0.0.1:1/unreachable"), clock,
+				READ_YOUR_WRITES_MS, RETRY_AFTER_MS, 100);
+		LazyConnectionDataSourceProxy routed = new LazyConnectionDataSourceProxy(primary);
+		routed.setReadOnlyDataSource(down);
+		TransactionTemplate read = new TransactionTemplate(new DataSourceTransactionManager(routed));
+		read.setReadOnly(true);
+		JdbcTemplate routedJdbc = new JdbcTemplate(routed);
+		new JdbcTemplate(primary).update("INSERT INTO otp_services VALUES (2, 'primary only')");
+
+		assertEquals(List.of("replicated", "primary only"), read.execute(status ->
+				routedJdbc.queryForList("SELECT service_name FROM otp_services ORDER BY id", String.class)));
+		read.executeWithoutResult(status -> routedJdbc.queryForList("SELECT id FROM otp_services", Long.class));
+
+		// One failed attempt, then the replica is left alone until the retry time
+		assertEquals(1L, down.stats().get("replicaFailures"));
+		assertEquals(2L, down.stats().get("fallbackReads"));
+		assertFalse((Boolean) down.stats().get("replicaAvailable"));
+		clock.millis += RETRY_AFTER_MS;
+		read.executeWithoutResult(status -> routedJdbc.queryForList("SELECT id FROM otp_services", Long.class));
+		assertEquals(2L, down.stats().get("replicaFailures"));
+	}
+
+	private List<String> names() {
+		return jdbc.queryForList("SELECT service_name FROM otp_services ORDER BY id", String.class);
+	}
+
+	private static void login(String username) {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null));
+	}
+
+	private static DriverManagerDataSource h2(String name) {
+		return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+	}
+}
@@ -0,0 +1,62 @@
+package com.chrono.auth.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Applies db/migration to an empty database and has Hibernate validate the
+ * entities against the result, so a mapping change without a migration fails
+ * here. activity_logs is excluded, as it is owned by ActivityLogPartitionManager.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:schema;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=TIMESTAMP,USER,VALUE",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.hibernate.ddl-auto=validate" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchemaMigrationTest {
+
+	@Autowired
+	private Flyway flyway;
+
+	@Test
+	void migrationsMatchTheEntityMappings() {
+		assertNotNull(flyway.info().current());
+		assertEquals(0, flyway.info().pending().length);
+	}
+
+	@Test
+	void databasesBaselinedAtV1StillGetLaterTables() throws Exception {
+		Flyway legacy = Flyway.configure()
+				.dataSource("jdbc:h2:mem:legacy;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "")
+				.locations("classpath:db/migration")
+				.baselineOnMigrate(true)
+				.baselineVersion("1")
+				.load();
+		// As left by init.sql: V1's tables, no history table
+		try (Connection connection = legacy.getConfiguration().getDataSource().getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute(new String(new ClassPathResource("db/migration/V1__baseline.sql").getContentAsByteArray(),
+					StandardCharsets.UTF_8));
+		}
+
+		legacy.migrate();
+
+		try (Connection connection = legacy.getConfiguration().getDataSource().getConnection();
+				ResultSet tables = connection.getMetaData().getTables(null, null, "otp_used_steps", null)) {
+			assertTrue(tables.next());
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.chrono.auth.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OtpServiceControllerTest {
+
+	@Test
+	void parsesWhitelistedColumnsWithAnOptionalDirection() {
+		assertEquals(Sort.by("serviceName"), OtpServiceController.parseSort("serviceName"));
+		assertEquals(Sort.by("serviceName"), OtpServiceController.parseSort("serviceName,asc"));
+		assertEquals(Sort.by("createdAt").descending(), OtpServiceController.parseSort("createdAt,desc"));
+		assertEquals(Sort.by("id").descending(), OtpServiceController.parseSort("id,DESC"));
+	}
+
+	@Test
+	void rejectsUnknownColumnsAndDirections() {
+		assertNull(OtpServiceController.parseSort("secretKey"));
+		assertNull(OtpServiceController.parseSort("serviceName,garbage"));
+		assertNull(OtpServiceController.parseSort("serviceName,"));
+		assertNull(OtpServiceController.parseSort("serviceName,desc,asc"));
+		assertNull(OtpServiceController.parseSort(""));
+	}
+
+	@Test
+	void namesOnlyTheFirstServicesOfALargeBatchView() {
+		assertEquals("Viewed OTPs for 2 services: a (Owner: x), b (Owner: y)",
+				OtpServiceController.batchViewDetails(2, List.of("a (Owner: x)", "b (Owner: y)")));
+		assertEquals("Viewed OTPs for 100000 services: a (Owner: x) and 99999 more",
+				OtpServiceController.batchViewDetails(100_000, List.of("a (Owner: x)")));
+	}
+}
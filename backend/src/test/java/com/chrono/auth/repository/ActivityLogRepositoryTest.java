@@ -0,0 +1,142 @@
+package com.chrono.auth.repository;
+
+import com.chrono.auth.config.ClockConfig;
+import com.chrono.auth.controller.ActivityLogController;
+import com.chrono.auth.dto.ActivityLogFilter;
+import com.chrono.auth.entity.ActivityLog;
+import com.chrono.auth.service.ActivityLogPartitionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:activity;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=TIMESTAMP,USER,VALUE",
+		"spring.datasource.driver-class-name=org.h2.Driver" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ ClockConfig.class, ActivityLogPartitionManager.class })
+class ActivityLogRepositoryTest {
+
+	private static final LocalDateTime NOON = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+	private static final Authentication ADMIN = new UsernamePasswordAuthenticationToken("admin", null,
+			List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+	@Autowired
+	private ActivityLogRepository activityLogRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ActivityLogController controller;
+
+	@BeforeEach
+	void setUp() {
+		// Three rows share a timestamp, so a page of two ends in the middle of them
+		insert("alice", "LOGIN", NOON.minusHours(1));
+		insert("alice", "LOGIN", NOON);
+		insert("bob", "LOGIN", NOON);
+		insert("alice", "VIEW_OTP", NOON);
+		insert("bob", "VIEW_OTP", NOON.plusHours(1));
+
+		controller = new ActivityLogController();
+		ReflectionTestUtils.setField(controller, "activityLogRepository", activityLogRepository);
+	}
+
+	@Test
+	void pagesThroughEqualTimestampsWithoutSkippingOrRepeatingRows() {
+		List<Long> expected = jdbcTemplate.queryForList(
+				"SELECT id FROM activity_logs ORDER BY timestamp DESC, id DESC", Long.class);
+
+		List<Long> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			Map<String, Object> page = body(controller.getAllLogs(ADMIN, cursor, 2));
+			for (ActivityLog log : items(page)) {
+				seen.add(log.getId());
+			}
+			cursor = (String) page.get("nextCursor");
+			pages++;
+		} while (cursor != null);
+
+		assertEquals(expected, seen);
+		assertEquals(3, pages);
+	}
+
+	@Test
+	void cursorEncodesTheLastRowOfThePage() {
+		Map<String, Object> page = body(controller.getAllLogs(ADMIN, null, 2));
+		ActivityLog last = items(page).get(1);
+
+		String decoded = new String(Base64.getUrlDecoder().decode((String) page.get("nextCursor")),
+				StandardCharsets.UTF_8);
+		assertEquals(NOON + "|" + last.getId(), decoded);
+
+		List<ActivityLog> rest = activityLogRepository.findPage(new ActivityLogFilter(), NOON, last.getId(), 10);
+		assertEquals(3, rest.size());
+		assertEquals(NOON.minusHours(1), rest.get(2).getTimestamp());
+	}
+
+	@Test
+	void appliesOnlyTheFiltersGiven() {
+		assertEquals(3, activityLogRepository.findPage(new ActivityLogFilter("alice", null, null, null), null, null, 10).size());
+		assertEquals(List.of("bob"), usernames(new ActivityLogFilter("bob", "LOGIN", null, null)));
+		assertEquals(List.of("alice", "alice"), usernames(new ActivityLogFilter("alice", "LOGIN", null, null)));
+
+		// from is inclusive, to exclusive
+		List<ActivityLog> noon = activityLogRepository.findPage(
+				new ActivityLogFilter(null, null, NOON, NOON.plusHours(1)), null, null, 10);
+		assertEquals(3, noon.size());
+		assertEquals(List.of(NOON, NOON, NOON), noon.stream().map(ActivityLog::getTimestamp).toList());
+	}
+
+	@Test
+	void rejectsMalformedCursors() {
+		assertEquals(400, controller.getAllLogs(ADMIN, "not a cursor", 2).getStatusCode().value());
+		String missingId = Base64.getUrlEncoder().encodeToString(NOON.toString().getBytes(StandardCharsets.UTF_8));
+		assertEquals(400, controller.getAllLogs(ADMIN, missingId, 2).getStatusCode().value());
+		String badTimestamp = Base64.getUrlEncoder().encodeToString("yesterday|5".getBytes(StandardCharsets.UTF_8));
+		assertEquals(400, controller.getAllLogs(ADMIN, badTimestamp, 2).getStatusCode().value());
+		assertNull(body(controller.getAllLogs(ADMIN, "", 10)).get("nextCursor"));
+	}
+
+	private List<String> usernames(ActivityLogFilter filter) {
+		return activityLogRepository.findPage(filter, null, null, 10).stream().map(ActivityLog::getUsername).toList();
+	}
+
+	private void insert(String username, String action, LocalDateTime timestamp) {
+		jdbcTemplate.update("INSERT INTO activity_logs (username, action, timestamp) VALUES (?, ?, ?)", username,
+				action, Timestamp.valueOf(timestamp));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> body(ResponseEntity<?> response) {
+		assertEquals(200, response.getStatusCode().value());
+		return (Map<String, Object>) response.getBody();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<ActivityLog> items(Map<String, Object> page) {
+		return (List<ActivityLog>) page.get("items");
+	}
+}
@@ -0,0 +1,80 @@
+package com.chrono.auth.repository;
+
+import com.chrono.auth.dto.OtpServiceSummary;
+import com.chrono.auth.entity.OtpService;
+import com.chrono.auth.entity.User;
+import com.chrono.auth.utils.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:summaries;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=TIMESTAMP,USER,VALUE",
+		"spring.datasource.driver-class-name=org.h2.Driver" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OtpServiceRepositoryTest {
+
+	static {
+		new EncryptionUtil().setKey("ChronoAuthTestKey");
+	}
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private OtpServiceRepository otpServiceRepository;
+
+	private User bob;
+
+	@BeforeEach
+	void setUp() {
+		User alice = userRepository.save(new User("alice"));
+		bob = userRepository.save(new User("bob"));
+		service(alice, "github");
+		service(bob, "aws");
+		service(alice, "zoom");
+	}
+
+	@Test
+	void projectsListingColumnsWithTheOwnerJoinedIn() {
+		Page<OtpServiceSummary> page = otpServiceRepository.findSummaries(
+				PageRequest.of(0, 2, Sort.by("serviceName")));
+
+		assertEquals(3, page.getTotalElements());
+		assertEquals(List.of("aws", "github"), page.getContent().stream().map(OtpServiceSummary::getServiceName).toList());
+		OtpServiceSummary first = page.getContent().get(0);
+		assertEquals("bob", first.getOwner());
+		assertNotNull(first.getId());
+		assertNotNull(first.getCreatedAt());
+	}
+
+	@Test
+	void sortsByOwnerAndFiltersByUser() {
+		Page<OtpServiceSummary> byOwner = otpServiceRepository.findSummaries(
+				PageRequest.of(0, 10, JpaSort.unsafe("u.username").descending().and(Sort.by("id"))));
+		assertEquals(List.of("bob", "alice", "alice"), byOwner.getContent().stream().map(OtpServiceSummary::getOwner).toList());
+
+		Page<OtpServiceSummary> bobs = otpServiceRepository.findSummariesByUserId(bob.getId(), PageRequest.of(0, 10));
+		assertEquals(List.of("aws"), bobs.getContent().stream().map(OtpServiceSummary::getServiceName).toList());
+		assertEquals(1, bobs.getTotalElements());
+	}
+
+	private void service(User owner, String name) {
+		OtpService service = new OtpService();
+		service.setUser(owner);
+		service.setServiceName(name);
+		service.setSecretKey("JBSWY3DPEHPK3PXP");
+		otpServiceRepository.save(service);
+	}
+}
@@ -0,0 +1,86 @@
+package com.chrono.auth.security;
+
+import com.chrono.auth.entity.User;
+import com.chrono.auth.repository.RevokedTokenRepository;
+import com.chrono.auth.repository.UserRepository;
+import com.chrono.auth.service.UserCache;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtAuthFilterTest {
+
+	private static final String SECRET = "A_VERY_LONG_SECRET_KEY_FOR_JWT_THAT_IS_AT_LEAST_256_BITS_LONG_AND_SECURE_1234567890";
+
+	private JwtUtils jwtUtils;
+
+	private UserRepository userRepository;
+
+	private JwtAuthFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		jwtUtils = new JwtUtils();
+		ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+		ReflectionTestUtils.setField(jwtUtils, "clock", Clock.systemUTC());
+		jwtUtils.init();
+
+		userRepository = mock(UserRepository.class);
+		filter = new JwtAuthFilter();
+		ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+		ReflectionTestUtils.setField(filter, "tokenRevocationList", new TokenRevocationList(
+				mock(RevokedTokenRepository.class), Clock.systemUTC(), 100, 0.001, 100, 60_000));
+		ReflectionTestUtils.setField(filter, "userCache", new UserCache(userRepository, Clock.systemUTC(), 100, 60_000));
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void keepsAdminRightsWhileTheUsersTableAgrees() throws Exception {
+		when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, "admin", "ROLE_ADMIN")));
+
+		assertEquals(List.of("ROLE_ADMIN"), authorities(jwtUtils.generateJwtToken("admin", 1L, "ROLE_ADMIN")));
+	}
+
+	@Test
+	void dropsAdminRightsOfADemotedUserBeforeTheTokenExpires() throws Exception {
+		when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, "admin", "ROLE_USER")));
+
+		assertEquals(List.of("ROLE_USER"), authorities(jwtUtils.generateJwtToken("admin", 1L, "ROLE_ADMIN")));
+	}
+
+	private List<String> authorities(String token) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/otp");
+		request.setCookies(new Cookie("jwt", token));
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+	}
+
+	private static User user(Long id, String username, String role) {
+		User user = new User(username);
+		user.setId(id);
+		user.setRole(role);
+		return user;
+	}
+}
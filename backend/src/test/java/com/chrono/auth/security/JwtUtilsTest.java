@@ -0,0 +1,107 @@
+package com.chrono.auth.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JwtUtilsTest {
+
+	private static final String SECRET = "A_VERY_LONG_SECRET_KEY_FOR_JWT_THAT_IS_AT_LEAST_256_BITS_LONG_AND_SECURE_1234567890";
+
+	private JwtUtils jwtUtils;
+
+	@BeforeEach
+	void setUp() {
+		jwtUtils = newJwtUtils(Clock.systemUTC());
+	}
+
+	@Test
+	void parsesUsernameAndRoleInOnePass() {
+		JwtPrincipal principal = jwtUtils.parse(jwtUtils.generateJwtToken("alice", "ROLE_ADMIN"));
+
+		assertNotNull(principal);
+		assertEquals("alice", principal.getUsername());
+		assertEquals("ROLE_ADMIN", principal.getRole());
+	}
+
+	@Test
+	void carriesTheUserIdWhenGiven() {
+		assertEquals(42L, jwtUtils.parse(jwtUtils.generateJwtToken("alice", 42L, "ROLE_USER")).getUserId());
+		assertNull(jwtUtils.parse(jwtUtils.generateJwtToken("alice", "ROLE_USER")).getUserId());
+	}
+
+	@Test
+	void givesEveryTokenItsOwnId() {
+		JwtPrincipal first = jwtUtils.parse(jwtUtils.generateJwtToken("alice", "ROLE_USER"));
+		JwtPrincipal second = jwtUtils.parse(jwtUtils.generateJwtToken("alice", "ROLE_USER"));
+
+		assertNotNull(first.getTokenId());
+		assertNotEquals(first.getTokenId(), second.getTokenId());
+	}
+
+	@Test
+	void servesRepeatedTokensFromTheVerifiedCache() {
+		String token = jwtUtils.generateJwtToken("alice", "ROLE_USER");
+
+		assertSame(jwtUtils.parse(token), jwtUtils.parse(token));
+	}
+
+	@Test
+	void rejectsTamperedAndForeignTokens() {
+		String token = jwtUtils.generateJwtToken("alice", "ROLE_USER");
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		assertNull(jwtUtils.parse(tampered));
+		assertNull(jwtUtils.parse("not-a-jwt"));
+		assertNull(jwtUtils.parse(null));
+	}
+
+	@Test
+	void countsFailuresByReason() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		jwtUtils.bindTo(registry);
+		String token = jwtUtils.generateJwtToken("alice", "ROLE_USER");
+		jwtUtils.parse(token);
+		jwtUtils.parse(token);
+		jwtUtils.parse(token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA"));
+		jwtUtils.parse("not-a-jwt");
+
+		assertEquals(1, registry.get("chrono.jwt.verify").tag("result", "valid").timer().count());
+		assertEquals(2, registry.get("chrono.jwt.verify").tag("result", "invalid").timer().count());
+		assertEquals(1.0, registry.get("chrono.jwt.cache.hits").functionCounter().count());
+		assertEquals(1.0, registry.get("chrono.jwt.failures").tag("reason", "signature").functionCounter().count());
+		assertEquals(1.0, registry.get("chrono.jwt.failures").tag("reason", "malformed").functionCounter().count());
+	}
+
+	@Test
+	void dropsCachedTokensOnceTheyExpire() {
+		Instant issued = Instant.parse("2026-01-01T00:00:00Z");
+		JwtUtils issuer = newJwtUtils(Clock.fixed(issued, ZoneOffset.UTC));
+		String token = issuer.generateJwtToken("alice", "ROLE_USER");
+		assertNotNull(issuer.parse(token));
+
+		ReflectionTestUtils.setField(issuer, "clock", Clock.fixed(issued.plusSeconds(3601), ZoneOffset.UTC));
+
+		assertNull(issuer.parse(token));
+	}
+
+	private static JwtUtils newJwtUtils(Clock clock) {
+		JwtUtils utils = new JwtUtils();
+		ReflectionTestUtils.setField(utils, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(utils, "jwtExpirationMs", 3600000);
+		ReflectionTestUtils.setField(utils, "clock", clock);
+		utils.init();
+		return utils;
+	}
+}
@@ -0,0 +1,140 @@
+package com.chrono.auth.security;
+
+import com.chrono.auth.utils.MutableClock;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LoginRateLimitFilterTest {
+
+	private final MutableClock clock = new MutableClock(1_000_000L);
+
+	@Test
+	void bucketAllowsABurstThenRefillsAtTheSustainedRate() {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(clock, 3, 60, 100);
+
+		assertEquals(0, limiter.tryAcquire("k"));
+		assertEquals(0, limiter.tryAcquire("k"));
+		assertEquals(0, limiter.tryAcquire("k"));
+		assertEquals(1000, limiter.tryAcquire("k"));
+		assertEquals(0, limiter.tryAcquire("other"));
+
+		clock.millis += 1000;
+		assertEquals(0, limiter.tryAcquire("k"));
+		assertEquals(1000, limiter.tryAcquire("k"));
+
+		clock.millis += 10_000;
+		limiter.purgeIdle();
+		assertEquals(0, limiter.size());
+	}
+
+	@Test
+	void fullLimiterEvictsOnlyRefilledBucketsAndThrottlesNewKeysOtherwise() {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(clock, 1, 60, 1);
+		// "a" and "q" share a stripe
+
+		assertEquals(0, limiter.tryAcquire("a"));
+		assertEquals(1000, limiter.tryAcquire("q"));
+		assertEquals(1000, limiter.tryAcquire("a"));
+		assertEquals(1, limiter.rejectedKeys());
+
+		clock.millis += 1000;
+		assertEquals(0, limiter.tryAcquire("q"));
+		assertEquals(1, limiter.evicted());
+		assertEquals(1, limiter.size());
+		assertEquals(1000, limiter.tryAcquire("q"));
+	}
+
+	@Test
+	void rejectsPerUsernameWith429AndPassesTheBodyThrough() throws Exception {
+		LoginRateLimitFilter filter = new LoginRateLimitFilter(clock, new ObjectMapper(), true, 100, 60, 2, 1, 1000);
+
+		for (int i = 0; i < 2; i++) {
+			MockFilterChain chain = new MockFilterChain();
+			filter.doFilter(login("10.0.0." + i, "Alice"), new MockHttpServletResponse(), chain);
+			assertNotNull(chain.getRequest());
+			assertEquals("{\"username\":\"Alice\",\"password\":\"x\"}",
+					new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+		}
+
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(login("10.0.0.9", "alice"), response, chain);
+
+		assertNull(chain.getRequest());
+		assertEquals(429, response.getStatus());
+		assertEquals("60", response.getHeader("Retry-After"));
+		assertEquals(1L, filter.stats().get("rejectedByUsername"));
+	}
+
+	@Test
+	void rejectsPerIpBeforeReadingTheBody() throws Exception {
+		LoginRateLimitFilter filter = new LoginRateLimitFilter(clock, new ObjectMapper(), true, 1, 60, 100, 60, 1000);
+
+		filter.doFilter(login("10.0.0.1", "a"), new MockHttpServletResponse(), new MockFilterChain());
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(login("10.0.0.1", "b"), response, new MockFilterChain());
+
+		assertEquals(429, response.getStatus());
+		assertEquals(1L, filter.stats().get("rejectedByIp"));
+	}
+
+	@Test
+	void refusesOversizedBodiesAndReplaysTheBodyToReadListeners() throws Exception {
+		LoginRateLimitFilter filter = new LoginRateLimitFilter(clock, new ObjectMapper(), true, 100, 60, 100, 60, 1000);
+
+		MockHttpServletRequest oversized = login("10.0.0.1", "a");
+		oversized.setContent(new byte[8193]);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(oversized, response, new MockFilterChain());
+		assertEquals(413, response.getStatus());
+
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(login("10.0.0.1", "a"), new MockHttpServletResponse(), chain);
+		ServletInputStream in = chain.getRequest().getInputStream();
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		List<String> events = new ArrayList<>();
+		in.setReadListener(new ReadListener() {
+			@Override
+			public void onDataAvailable() throws IOException {
+				events.add("data");
+				read.write(in.readAllBytes());
+			}
+
+			@Override
+			public void onAllDataRead() {
+				events.add("done");
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				events.add("error");
+			}
+		});
+
+		assertEquals(List.of("data", "done"), events);
+		assertEquals("{\"username\":\"a\",\"password\":\"x\"}", read.toString(StandardCharsets.UTF_8));
+	}
+
+	private static MockHttpServletRequest login(String ip, String username) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+		request.setRemoteAddr(ip);
+		request.setContentType("application/json");
+		request.setContent(("{\"username\":\"" + username + "\",\"password\":\"x\"}").getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+}
@@ -0,0 +1,140 @@
+package com.chrono.auth.security;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.SimpleBindRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PooledLdapAuthenticationProviderTest {
+
+	private static final String BASE = "dc=chrono-auth,dc=local";
+
+	private static final SimpleMeterRegistry REGISTRY = new SimpleMeterRegistry();
+
+	private static InMemoryDirectoryServer server;
+
+	private static LDAPConnectionPool pool;
+
+	@BeforeAll
+	static void startDirectory() throws Exception {
+		InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE);
+		config.addAdditionalBindCredentials("cn=admin," + BASE, "admin");
+		// bootstrap.ldif relies on the nis schema that OpenLDAP ships with
+		config.setSchema(null);
+		server = new InMemoryDirectoryServer(config);
+		server.add("dn: " + BASE, "objectClass: top", "objectClass: domain", "dc: chrono-auth");
+		server.importFromLDIF(false, Paths.get("..", "init-scripts", "bootstrap.ldif").toFile());
+		server.startListening();
+
+		LDAPConnection connection = new LDAPConnection("localhost", server.getListenPort());
+		pool = new LDAPConnectionPool(connection, 1, 2);
+		pool.setCreateIfNecessary(false);
+		pool.setMaxWaitTimeMillis(5000);
+		pool.bindAndRevertAuthentication(new SimpleBindRequest("cn=admin," + BASE, "admin"));
+	}
+
+	@AfterAll
+	static void stopDirectory() {
+		pool.close();
+		server.shutDown(true);
+	}
+
+	private static PooledLdapAuthenticationProvider provider() {
+		return new PooledLdapAuthenticationProvider(pool, "uid={0},ou=users," + BASE, REGISTRY);
+	}
+
+	@Test
+	void bindsSeededUsers() {
+		assertEquals("testuser", provider().authenticate(login("testuser", "testpassword")).getName());
+		assertEquals("adminuser", provider().authenticate(login("adminuser", "adminpassword")).getName());
+	}
+
+	@Test
+	void rejectsWrongPasswordsUnknownUsersAndEmptyPasswords() {
+		assertThrows(BadCredentialsException.class, () -> provider().authenticate(login("testuser", "wrong")));
+		assertThrows(BadCredentialsException.class, () -> provider().authenticate(login("nobody", "testpassword")));
+		assertThrows(BadCredentialsException.class, () -> provider().authenticate(login("testuser", "")));
+		assertThrows(BadCredentialsException.class,
+				() -> provider().authenticate(login("*,ou=users," + BASE, "testpassword")));
+	}
+
+	@Test
+	void timesBindsByOutcome() {
+		SimpleMeterRegistry local = new SimpleMeterRegistry();
+		PooledLdapAuthenticationProvider provider = new PooledLdapAuthenticationProvider(pool,
+				"uid={0},ou=users," + BASE, local);
+		provider.authenticate(login("testuser", "testpassword"));
+		assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("testuser", "wrong")));
+
+		assertEquals(1, local.get("chrono.ldap.bind").tag("outcome", "success").timer().count());
+		assertEquals(1, local.get("chrono.ldap.bind").tag("outcome", "bad_credentials").timer().count());
+		assertEquals(0, local.get("chrono.ldap.bind").tag("outcome", "error").timer().count());
+	}
+
+	@Test
+	void concurrentLoginsShareTheBoundedPool() throws Exception {
+		long connectionsBefore = pool.getConnectionPoolStatistics().getNumSuccessfulConnectionAttempts();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<?>> logins = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			logins.add(executor.submit(() -> provider().authenticate(login("testuser", "testpassword"))));
+		}
+		for (Future<?> login : logins) {
+			login.get();
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		long opened = pool.getConnectionPoolStatistics().getNumSuccessfulConnectionAttempts() - connectionsBefore;
+		assertTrue(opened <= 2, "opened " + opened + " connections for 200 logins");
+	}
+
+	@Test
+	void bindCacheSkipsTheDirectoryForRepeatedSuccessfulLogins() {
+		AtomicInteger binds = new AtomicInteger();
+		ProviderManager ldap = new ProviderManager(provider());
+		AuthenticationManager counting = authentication -> {
+			binds.incrementAndGet();
+			return ldap.authenticate(authentication);
+		};
+		CachingAuthenticationManager cached = new CachingAuthenticationManager(counting, Clock.systemUTC(), 60000, 100);
+
+		cached.authenticate(login("testuser", "testpassword"));
+		cached.authenticate(login("testuser", "testpassword"));
+		assertEquals(1, binds.get());
+
+		assertThrows(BadCredentialsException.class, () -> cached.authenticate(login("testuser", "wrong")));
+		assertEquals(2, binds.get());
+
+		cached.evict("testuser");
+		cached.authenticate(login("testuser", "testpassword"));
+		assertEquals(3, binds.get());
+	}
+
+	private static UsernamePasswordAuthenticationToken login(String username, String password) {
+		return new UsernamePasswordAuthenticationToken(username, password);
+	}
+}
@@ -0,0 +1,195 @@
+package com.chrono.auth.security;
+
+import com.chrono.auth.repository.RevokedTokenRepository;
+import com.chrono.auth.repository.RevokedTokenRepository.Revocation;
+import com.chrono.auth.utils.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationListTest {
+
+	private static final long NOW = 1_800_000_000_000L;
+
+	private static final long HOUR = 3_600_000L;
+
+	private final MutableClock clock = new MutableClock(NOW);
+
+	// Committed rows of the shared table, as other replicas would have written them
+	private final List<Revocation> table = new ArrayList<>();
+
+	private RevokedTokenRepository repository;
+
+	private TokenRevocationList list;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(RevokedTokenRepository.class);
+		when(repository.findChangesAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+			long afterId = invocation.getArgument(0);
+			Pageable page = invocation.getArgument(1);
+			return table.stream().filter(row -> row.getId() > afterId)
+					.sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+					.limit(page.getPageSize()).toList();
+		});
+		list = new TokenRevocationList(repository, clock, 100, 0.001, 2, 60_000);
+	}
+
+	@Test
+	void rejectsARevokedTokenLocallyAndPersistsIt() {
+		JwtPrincipal token = principal("jti-1", NOW + HOUR);
+
+		assertFalse(list.isRevoked(token));
+		assertTrue(list.revoke(token));
+
+		assertTrue(list.isRevoked(token));
+		assertFalse(list.isRevoked(principal("jti-2", NOW + HOUR)));
+		verify(repository).insert("jti-1", LocalDateTime.ofInstant(Instant.ofEpochMilli(NOW + HOUR), ZoneOffset.UTC));
+	}
+
+	@Test
+	void toleratesRepeatedRevocationAndIgnoresTokensWithoutAnId() {
+		doThrow(new DataIntegrityViolationException("duplicate")).when(repository).insert(eq("jti-1"), any());
+
+		assertTrue(list.revoke(principal("jti-1", NOW + HOUR)));
+		assertTrue(list.isRevoked(principal("jti-1", NOW + HOUR)));
+		assertFalse(list.revoke(principal(null, NOW + HOUR)));
+		assertFalse(list.isRevoked(principal(null, NOW + HOUR)));
+	}
+
+	@Test
+	void keepsTheLocalRevocationWhenItCannotBePersisted() {
+		doThrow(new DataAccessResourceFailureException("down")).when(repository).insert(eq("jti-1"), any());
+
+		assertTrue(list.revoke(principal("jti-1", NOW + HOUR)));
+
+		assertTrue(list.isRevoked(principal("jti-1", NOW + HOUR)));
+		assertEquals(1L, list.stats().get("persistFailures"));
+	}
+
+	@Test
+	void picksUpOtherReplicasRevocationsAcrossPages() {
+		for (long id = 1; id <= 5; id++) {
+			row(id, "remote-" + id, NOW + HOUR);
+		}
+
+		list.poll();
+
+		for (long id = 1; id <= 5; id++) {
+			assertTrue(list.isRevoked(principal("remote-" + id, NOW + HOUR)));
+		}
+		assertEquals(5L, list.stats().get("lastAppliedId"));
+
+		row(6, "remote-6", NOW + HOUR);
+		list.poll();
+		assertTrue(list.isRevoked(principal("remote-6", NOW + HOUR)));
+	}
+
+	@Test
+	void rereadsIdsThatCommitLateUntilTheGapTimesOut() {
+		row(1, "first", NOW + HOUR);
+		list.poll();
+
+		// Id 2 was allocated first but its transaction commits after id 3
+		row(3, "third", NOW + HOUR);
+		list.poll();
+		assertEquals(1, list.stats().get("pendingGaps"));
+
+		row(2, "second", NOW + HOUR);
+		list.poll();
+		assertTrue(list.isRevoked(principal("second", NOW + HOUR)));
+		assertEquals(0, list.stats().get("pendingGaps"));
+
+		// Id 4 rolled back and never appears
+		row(5, "fifth", NOW + HOUR);
+		list.poll();
+		assertEquals(1, list.stats().get("pendingGaps"));
+		clock.millis += 61_000;
+		list.poll();
+		assertEquals(0, list.stats().get("pendingGaps"));
+	}
+
+	@Test
+	void dropsEntriesOnceTheirTokenExpires() {
+		list.revoke(principal("short", NOW + 1_000));
+		list.revoke(principal("long", NOW + HOUR));
+		row(1, "already-expired", NOW - 1_000);
+		list.poll();
+		assertFalse(list.isRevoked(principal("already-expired", NOW - 1_000)));
+
+		clock.millis += 2_000;
+		list.purgeExpired();
+
+		assertFalse(list.isRevoked(principal("short", NOW + 1_000)));
+		assertTrue(list.isRevoked(principal("long", NOW + HOUR)));
+		assertEquals(1, list.stats().get("revokedTokens"));
+		verify(repository).deleteExpired(LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.millis), ZoneOffset.UTC));
+	}
+
+	@Test
+	void growsTheFilterPastItsExpectedEntries() {
+		for (int i = 0; i < 250; i++) {
+			list.revoke(principal("jti-" + i, NOW + HOUR));
+		}
+
+		for (int i = 0; i < 250; i++) {
+			assertTrue(list.isRevoked(principal("jti-" + i, NOW + HOUR)));
+		}
+		assertTrue((int) list.stats().get("filterCapacity") >= 250);
+	}
+
+	@Test
+	void keepsLocalRevocationsWhenTheDatabaseIsDown() {
+		list.revoke(principal("jti-1", NOW + HOUR));
+		when(repository.findChangesAfter(anyLong(), any(Pageable.class)))
+				.thenThrow(new DataAccessResourceFailureException("down"));
+
+		list.poll();
+
+		assertTrue(list.isRevoked(principal("jti-1", NOW + HOUR)));
+		assertEquals(1L, list.stats().get("pollFailures"));
+	}
+
+	private static JwtPrincipal principal(String tokenId, long expiresAt) {
+		return new JwtPrincipal("alice", 7L, "ROLE_USER", expiresAt, tokenId);
+	}
+
+	private void row(long id, String tokenId, long expiresAt) {
+		LocalDateTime expires = LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneOffset.UTC);
+		table.add(new Revocation() {
+			@Override
+			public Long getId() {
+				return id;
+			}
+
+			@Override
+			public String getTokenId() {
+				return tokenId;
+			}
+
+			@Override
+			public LocalDateTime getExpiresAt() {
+				return expires;
+			}
+		});
+	}
+}
@@ -0,0 +1,75 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.utils.MutableClock;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ActivityLogPartitionManagerTest {
+
+	@Test
+	void createsAPlainTableAndDeletesExpiredRowsOnOtherDatabases() {
+		JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(
+				"jdbc:h2:mem:partitions;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=TIMESTAMP,USER,VALUE;DB_CLOSE_DELAY=-1",
+				"sa", ""));
+		MutableClock clock = new MutableClock(LocalDateTime.of(2026, 3, 15, 12, 0).toInstant(ZoneOffset.UTC).toEpochMilli());
+		ActivityLogPartitionManager manager = new ActivityLogPartitionManager(jdbc, clock, true, true, 3, 12);
+
+		manager.ensureSchema();
+		insert(jdbc, LocalDateTime.of(2025, 2, 28, 23, 59));
+		insert(jdbc, LocalDateTime.of(2025, 3, 1, 0, 0));
+		insert(jdbc, LocalDateTime.of(2026, 3, 15, 11, 0));
+		// A restart finds the table and its indexes in place
+		manager.ensureSchema();
+
+		assertEquals(2, jdbc.queryForList("SELECT index_name FROM information_schema.indexes "
+				+ "WHERE table_name = 'activity_logs' AND index_name LIKE 'idx_activity_logs_%'").size());
+		assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM activity_logs", Integer.class));
+
+		clock.millis = LocalDateTime.of(2026, 4, 1, 3, 15).toInstant(ZoneOffset.UTC).toEpochMilli();
+		manager.maintain();
+		assertEquals(List.of(LocalDateTime.of(2026, 3, 15, 11, 0)),
+				jdbc.queryForList("SELECT timestamp FROM activity_logs", LocalDateTime.class));
+	}
+
+	@Test
+	void parsesPartitionBoundsAsReportedByTheCatalog() {
+		List<Map<String, Object>> partitions = List.of(
+				partition("p202501", "'2025-02-01'"),
+				partition("p202502", "'2025-03-01 00:00:00'"),
+				partition("p202503", " '2025-04-01' "),
+				partition("pmax", "MAXVALUE"));
+
+		assertEquals(List.of("p202501", "p202502"),
+				ActivityLogPartitionManager.expiredPartitions(partitions, LocalDate.of(2025, 3, 1)));
+		assertEquals(List.of(), ActivityLogPartitionManager.expiredPartitions(partitions, LocalDate.of(2025, 1, 1)));
+	}
+
+	@Test
+	void definesOneMonthlyPartitionPerMonthBeforePmax() {
+		assertEquals("PARTITION p202411 VALUES LESS THAN ('2024-12-01'), "
+				+ "PARTITION p202412 VALUES LESS THAN ('2025-01-01'), "
+				+ "PARTITION p202501 VALUES LESS THAN ('2025-02-01'), "
+				+ "PARTITION pmax VALUES LESS THAN (MAXVALUE)",
+				ActivityLogPartitionManager.partitionDefinitions(YearMonth.of(2024, 11), YearMonth.of(2025, 1)));
+	}
+
+	private static Map<String, Object> partition(String name, String description) {
+		return Map.of("PARTITION_NAME", name, "PARTITION_DESCRIPTION", description);
+	}
+
+	private static void insert(JdbcTemplate jdbc, LocalDateTime timestamp) {
+		jdbc.update("INSERT INTO activity_logs (username, action, timestamp) VALUES ('alice', 'LOGIN', ?)",
+				Timestamp.valueOf(timestamp));
+	}
+}
@@ -0,0 +1,203 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.entity.ActivityLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ActivityLogWriterTest {
+
+	@TempDir
+	Path tempDir;
+
+	private ActivityLogWriter writer;
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		if (writer != null) {
+			writer.stop();
+		}
+	}
+
+	@Test
+	void writesQueuedEntriesInBatchesAndFlushesOnShutdown() throws InterruptedException {
+		RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+		writer = new ActivityLogWriter(jdbc, transactions(), recentActivity(jdbc), 1000, 10, 50, "block", 1000, tempDir.resolve("spill.log").toString());
+		writer.start();
+
+		for (int i = 0; i < 25; i++) {
+			writer.submit(new ActivityLog("alice", "VIEW_OTP", "entry " + i));
+		}
+		writer.stop();
+		writer = null;
+
+		assertEquals(25, jdbc.rows.size());
+		assertTrue(jdbc.batchSizes.stream().allMatch(size -> size <= 10));
+	}
+
+	@Test
+	void dropPolicyCountsRejectedEntries() {
+		RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+		// Writer not started, so the queue fills up
+		ActivityLogWriter unstarted = new ActivityLogWriter(jdbc, transactions(), recentActivity(jdbc), 2, 10, 50, "drop", 0,
+				tempDir.resolve("spill.log").toString());
+
+		for (int i = 0; i < 5; i++) {
+			unstarted.submit(new ActivityLog("alice", "LOGIN", null));
+		}
+
+		assertEquals(3L, unstarted.stats().get("dropped"));
+		assertEquals(2, unstarted.stats().get("queueDepth"));
+	}
+
+	@Test
+	void spillsWhenTheDatabaseFailsAndReplaysLater() throws Exception {
+		RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+		jdbc.failing.set(true);
+		Path spill = tempDir.resolve("spill.log");
+		writer = new ActivityLogWriter(jdbc, transactions(), recentActivity(jdbc), 1000, 10, 20, "spill", 0, spill.toString());
+		writer.start();
+
+		writer.submit(new ActivityLog("alice", "LOGIN", "tab\tand\nnewline"));
+		waitUntil(() -> ((Long) writer.stats().get("spilled")) == 1L);
+		assertTrue(jdbc.rows.isEmpty());
+
+		jdbc.failing.set(false);
+		waitUntil(() -> jdbc.rows.size() == 1);
+
+		assertEquals("tab\tand\nnewline", jdbc.rows.get(0).getDetails());
+		waitUntil(() -> !Files.exists(spill) && !Files.exists(tempDir.resolve("spill.log.replay")));
+		assertFalse(Files.exists(spill));
+	}
+
+	@Test
+	void retriesAFailedBatchRowByRowSoOnlyTheRejectedRowIsLost() throws InterruptedException {
+		RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+		jdbc.rejectedDetails = "too long";
+		writer = new ActivityLogWriter(jdbc, transactions(), recentActivity(jdbc), 1000, 10, 50, "spill", 0,
+				tempDir.resolve("spill.log").toString());
+		writer.start();
+
+		writer.submit(new ActivityLog("alice", "VIEW_OTP", "before"));
+		writer.submit(new ActivityLog("alice", "VIEW_OTP", "too long"));
+		writer.submit(new ActivityLog("alice", "VIEW_OTP", "after"));
+		writer.stop();
+		writer = null;
+
+		assertEquals(List.of("before", "after"), jdbc.rows.stream().map(ActivityLog::getDetails).toList());
+		assertFalse(Files.exists(tempDir.resolve("spill.log")));
+	}
+
+	@Test
+	void skipsATruncatedSpillLineAndReplaysTheRest() throws Exception {
+		Path spill = tempDir.resolve("spill.log");
+		// The second entry was cut off by a crash while it was being appended
+		Files.writeString(spill, "2026-01-01T10:00\t" + base64("alice") + "\t" + base64("LOGIN") + "\t-\n"
+				+ "2026-01-01T10:01\t" + base64("bob"));
+		RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+		writer = new ActivityLogWriter(jdbc, transactions(), recentActivity(jdbc), 1000, 10, 20, "spill", 0,
+				spill.toString());
+		writer.start();
+
+		waitUntil(() -> !Files.exists(spill) && !Files.exists(tempDir.resolve("spill.log.replay")));
+		assertEquals(1, jdbc.rows.size());
+		assertFalse(Files.exists(tempDir.resolve("spill.log.replay.done")));
+		assertEquals("alice", jdbc.rows.get(0).getUsername());
+		assertEquals(1L, writer.stats().get("malformedSpillLines"));
+	}
+
+	@Test
+	void resumesAnInterruptedReplayWithoutDuplicatingRows() throws Exception {
+		Path spill = tempDir.resolve("spill.log");
+		StringBuilder lines = new StringBuilder();
+		for (int i = 0; i < 25; i++) {
+			lines.append("2026-01-01T10:00\t").append(base64("alice")).append('\t').append(base64("LOGIN"))
+					.append('\t').append(base64("entry " + i)).append('\n');
+		}
+		Files.writeString(spill, lines);
+		RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+		// The database goes away after the first chunk and comes back for a later replay
+		jdbc.succeedBeforeFailing.set(1);
+		jdbc.failures.set(2);
+		writer = new ActivityLogWriter(jdbc, transactions(), recentActivity(jdbc), 1000, 10, 20, "spill", 0,
+				spill.toString());
+		writer.start();
+
+		waitUntil(() -> !Files.exists(spill) && !Files.exists(tempDir.resolve("spill.log.replay")));
+		assertEquals(25, jdbc.rows.size());
+		assertEquals(25, jdbc.rows.stream().map(ActivityLog::getDetails).distinct().count());
+	}
+
+	private static String base64(String value) {
+		return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static TransactionTemplate transactions() {
+		return new TransactionTemplate(mock(PlatformTransactionManager.class));
+	}
+
+	private static RecentActivityStore recentActivity(JdbcTemplate jdbc) {
+		return new RecentActivityStore(jdbc, Clock.systemUTC(), 50, 500, 100, 60, 0);
+	}
+
+	private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("Condition not met in time");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static final class RecordingJdbcTemplate extends JdbcTemplate {
+
+		private final List<ActivityLog> rows = new CopyOnWriteArrayList<>();
+		private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+		private final AtomicBoolean failing = new AtomicBoolean();
+		private final AtomicInteger succeedBeforeFailing = new AtomicInteger();
+		private final AtomicInteger failures = new AtomicInteger();
+		private volatile String rejectedDetails;
+
+		@Override
+		public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+				ParameterizedPreparedStatementSetter<T> pss) {
+			if (failing.get()
+					|| succeedBeforeFailing.getAndDecrement() <= 0 && failures.getAndDecrement() > 0) {
+				throw new DataAccessResourceFailureException("database down");
+			}
+			if (batchArgs.stream().anyMatch(arg -> ((ActivityLog) arg).getDetails() != null
+					&& ((ActivityLog) arg).getDetails().equals(rejectedDetails))) {
+				throw new DataIntegrityViolationException("Data too long for column 'details'");
+			}
+			batchSizes.add(batchArgs.size());
+			for (T arg : new ArrayList<>(batchArgs)) {
+				rows.add((ActivityLog) arg);
+			}
+			return new int[0][];
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.repository.OtpServiceRepository;
+import com.chrono.auth.repository.OtpServiceRepository.StreamedService;
+import com.chrono.auth.utils.EncryptionUtil;
+import com.chrono.auth.utils.MutableClock;
+import com.chrono.auth.utils.SecretStore;
+import com.chrono.auth.utils.TotpAlgorithm;
+import com.chrono.auth.utils.TotpBatchGenerator;
+import com.chrono.auth.utils.TotpCodeCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OtpCodeStreamTest {
+
+	private static final String PLAIN_SECRET = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+
+	private static final String SECRET;
+
+	static {
+		new EncryptionUtil().setKey("ChronoAuthTestKey");
+		SECRET = EncryptionUtil.encrypt(PLAIN_SECRET);
+	}
+
+	private MutableClock clock;
+
+	private OtpServiceRepository repository;
+
+	private OtpCodeStream stream;
+
+	@BeforeEach
+	void setUp() {
+		clock = new MutableClock(59_000L);
+		repository = mock(OtpServiceRepository.class);
+		// Every user owns two services
+		when(repository.findStreamedServicesByUserIds(anyCollection())).thenAnswer(invocation -> {
+			List<StreamedService> services = new ArrayList<>();
+			for (Long userId : invocation.<Collection<Long>>getArgument(0)) {
+				services.add(new Service(userId * 2, "svc-" + userId, userId, "user-" + userId));
+				services.add(new Service(userId * 2 + 1, "svc-" + userId + "b", userId, "user-" + userId));
+			}
+			return services;
+		});
+		stream = newStream(100_000);
+	}
+
+	@Test
+	void sendsCurrentCodesOnConnect() {
+		RecordingEmitter emitter = new RecordingEmitter();
+		assertTrue(stream.register(emitter, 1L, null, false));
+
+		assertEquals(1, emitter.events.size());
+		assertTrue(emitter.events.get(0).contains("event:codes"));
+		assertTrue(emitter.events.get(0).contains("\"code\":\"287082\""));
+		assertTrue(emitter.events.get(0).contains("\"validUntil\":60000"));
+		// Services may have different periods, so the event carries no single step number
+		assertFalse(emitter.events.get(0).contains("\"step\""));
+	}
+
+	@Test
+	void publishesEachStepOnceWithOneQueryForAllSubscribers() {
+		RecordingEmitter first = new RecordingEmitter();
+		RecordingEmitter secondTab = new RecordingEmitter();
+		RecordingEmitter other = new RecordingEmitter();
+		stream.register(first, 1L, null, false);
+		stream.register(secondTab, 1L, null, false);
+		stream.register(other, 2L, null, false);
+
+		clock.millis = 60_000L;
+		stream.publish();
+		stream.publish();
+
+		verify(repository, times(1)).findStreamedServicesByUserIds(argThat(ids -> ids.size() == 2));
+		assertEquals(2, first.events.size());
+		assertEquals(2, secondTab.events.size());
+		assertEquals(2, other.events.size());
+		assertTrue(other.events.get(1).contains("user-2"));
+		assertFalse(other.events.get(1).contains("user-1"));
+	}
+
+	@Test
+	void dropsConnectionsThatFailAndRejectsOverTheLimit() {
+		OtpCodeStream limited = newStream(2);
+		RecordingEmitter healthy = new RecordingEmitter();
+		RecordingEmitter broken = new RecordingEmitter();
+		assertTrue(limited.register(healthy, 1L, null, false));
+		assertTrue(limited.register(broken, 2L, null, false));
+		assertFalse(limited.register(new RecordingEmitter(), 3L, null, false));
+
+		broken.failing.set(true);
+		clock.millis = 60_000L;
+		limited.publish();
+
+		assertEquals(1, limited.stats().get("connections"));
+		assertEquals(1L, limited.stats().get("rejected"));
+		assertTrue(limited.register(new RecordingEmitter(), 3L, null, false));
+	}
+
+	@Test
+	void releasesTheSlotWhenTheInitialLoadFails() {
+		OtpCodeStream limited = newStream(1);
+		when(repository.findStreamedServicesByUserIds(anyCollection()))
+				.thenThrow(new DataAccessResourceFailureException("database down"));
+		RecordingEmitter orphan = new RecordingEmitter();
+
+		assertThrows(DataAccessResourceFailureException.class, () -> limited.register(orphan, 1L, "jti-1", false));
+		assertEquals(0, limited.stats().get("connections"));
+		assertEquals(0, limited.stats().get("subscribedUsers"));
+		assertEquals(0, limited.closeToken("jti-1"));
+
+		clock.millis = 60_000L;
+		limited.publish();
+		assertTrue(orphan.events.isEmpty());
+	}
+
+	@Test
+	void closesOnlyTheStreamsOpenedWithARevokedToken() {
+		RecordingEmitter loggedOut = new RecordingEmitter();
+		RecordingEmitter loggedOutTab = new RecordingEmitter();
+		RecordingEmitter otherSession = new RecordingEmitter();
+		stream.register(loggedOut, 1L, "jti-1", false);
+		stream.register(loggedOutTab, 1L, "jti-1", false);
+		stream.register(otherSession, 1L, "jti-2", false);
+
+		assertEquals(2, stream.closeToken("jti-1"));
+		assertEquals(0, stream.closeToken("jti-1"));
+		clock.millis = 60_000L;
+		stream.publish();
+
+		assertEquals(1, stream.stats().get("connections"));
+		assertEquals(1, loggedOut.events.size());
+		assertEquals(1, loggedOutTab.events.size());
+		assertEquals(2, otherSession.events.size());
+	}
+
+	@Test
+	void publishesOnceToEveryConnectionOfEveryUser() {
+		int connections = 1000;
+		OtpCodeStream scaled = newStream(connections);
+		List<RecordingEmitter> emitters = new ArrayList<>(connections);
+		for (int i = 0; i < connections; i++) {
+			RecordingEmitter emitter = new RecordingEmitter();
+			emitters.add(emitter);
+			// Two browser tabs per user
+			assertTrue(scaled.register(emitter, (long) (i / 2 + 1), null, false));
+		}
+
+		clock.millis += 30_000L;
+		scaled.publish();
+
+		assertEquals((long) connections * 2, scaled.stats().get("events"));
+		for (int i = 0; i < connections; i++) {
+			List<String> events = emitters.get(i).events;
+			assertEquals(2, events.size());
+			assertTrue(events.get(1).contains("user-" + (i / 2 + 1) + "\""));
+		}
+	}
+
+	private OtpCodeStream newStream(int maxConnections) {
+		SecretStore secretStore = new SecretStore(100_000);
+		TotpCodeCache codeCache = new TotpCodeCache(clock, secretStore, new TotpBatchGenerator(secretStore, 256, 0),
+				100_000, 2000);
+		return new OtpCodeStream(repository, codeCache, JsonMapper.builder().build(), clock, 0, maxConnections,
+				Runnable::run);
+	}
+
+	private record Service(Long id, String serviceName, Long userId, String owner) implements StreamedService {
+
+		@Override
+		public Long getId() {
+			return id;
+		}
+
+		@Override
+		public String getServiceName() {
+			return serviceName;
+		}
+
+		@Override
+		public Long getUserId() {
+			return userId;
+		}
+
+		@Override
+		public String getOwner() {
+			return owner;
+		}
+
+		@Override
+		public String getEncryptedSecretKey() {
+			return SECRET;
+		}
+
+		@Override
+		public TotpAlgorithm getAlgorithm() {
+			return TotpAlgorithm.SHA1;
+		}
+
+		@Override
+		public int getDigits() {
+			return 6;
+		}
+
+		@Override
+		public int getPeriod() {
+			return 30;
+		}
+	}
+
+	private static final class RecordingEmitter extends SseEmitter {
+
+		private final List<String> events = new ArrayList<>();
+
+		private final AtomicBoolean failing = new AtomicBoolean();
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			if (failing.get()) {
+				throw new IOException("Broken pipe");
+			}
+			StringBuilder event = new StringBuilder();
+			for (DataWithMediaType data : builder.build()) {
+				event.append(data.getData());
+			}
+			events.add(event.toString());
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.utils.EncryptionUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+
+class OtpServiceImporterTest {
+
+	@BeforeAll
+	static void configureEncryption() {
+		new EncryptionUtil().setKey("ChronoAuthTestKey");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void importsValidLinesInChunksAndReportsTheRest() throws Exception {
+		RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+		OtpServiceImporter importer = new OtpServiceImporter(jdbc,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), 2, 10, 2);
+
+		String input = String.join("\n",
+				"serviceName,secret",
+				"# comment",
+				"otpauth://totp/GitHub?secret=JBSWY3DPEHPK3PXP",
+				"\"Bank, personal\",jbsw y3dp ehpk 3pxp",
+				"",
+				"otpauth://hotp/Counter?secret=JBSWY3DPEHPK3PXP",
+				"no separator here",
+				"AWS,JBSWY3DPEHPK3PXP");
+		Map<String, Object> result = importer.importFrom(7L, new StringReader(input));
+		importer.shutdown();
+
+		assertEquals(3L, result.get("imported"));
+		assertEquals(2L, result.get("failed"));
+		List<Map<String, Object>> errors = (List<Map<String, Object>>) result.get("errors");
+		assertEquals(List.of(6, 7), errors.stream().map(e -> e.get("line")).toList());
+
+		assertEquals(List.of(2, 1), jdbc.batchSizes);
+		assertEquals("Bank, personal", jdbc.rows.get(1)[1]);
+		assertEquals("JBSWY3DPEHPK3PXP", EncryptionUtil.decrypt((String) jdbc.rows.get(1)[2]));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void reportsDatabaseFailuresWithoutDriverDetails() throws Exception {
+		JdbcTemplate jdbc = new JdbcTemplate() {
+			@Override
+			public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+				throw new DataIntegrityViolationException("Duplicate entry 'x' for key 'uk_otp_services_name'");
+			}
+		};
+		OtpServiceImporter importer = new OtpServiceImporter(jdbc,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), 10, 10, 1);
+
+		Map<String, Object> result = importer.importFrom(7L, new StringReader("AWS,JBSWY3DPEHPK3PXP"));
+		importer.shutdown();
+
+		List<Map<String, Object>> errors = (List<Map<String, Object>>) result.get("errors");
+		String message = (String) errors.get(0).get("error");
+		assertEquals("Not imported: rejected by the database (duplicate or invalid value)", message);
+		assertFalse(message.contains("uk_otp_services_name"));
+	}
+
+	private static final class RecordingJdbcTemplate extends JdbcTemplate {
+
+		private final List<Object[]> rows = new ArrayList<>();
+		private final List<Integer> batchSizes = new ArrayList<>();
+
+		@Override
+		public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+			batchSizes.add(batchArgs.size());
+			rows.addAll(batchArgs);
+			return new int[batchArgs.size()];
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.entity.ActivityLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RecentActivityStoreTest {
+
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-03-01T12:00:30Z"), ZoneId.systemDefault());
+
+	private static final LocalDateTime NOW = LocalDateTime.now(CLOCK);
+
+	@Test
+	void ringKeepsTheLatestEntriesNewestFirst() {
+		RecentActivityStore store = new RecentActivityStore(new StubJdbcTemplate(), CLOCK, 3, 10, 100, 60, 0);
+		store.warm();
+
+		for (int i = 0; i < 5; i++) {
+			store.record(log("alice", "VIEW_OTP", "entry " + i, NOW));
+		}
+
+		List<ActivityLog> recent = store.recentForUser("alice", 3);
+		assertEquals(List.of("entry 4", "entry 3", "entry 2"), recent.stream().map(ActivityLog::getDetails).toList());
+		assertNull(store.recentForUser("alice", 4), "deeper than the ring goes to the database");
+	}
+
+	@Test
+	void unloadedRingIsToppedUpWithOlderHistory() {
+		StubJdbcTemplate jdbc = new StubJdbcTemplate();
+		RecentActivityStore store = new RecentActivityStore(jdbc, CLOCK, 3, 10, 100, 60, 1);
+		jdbc.rows.add(log("bob", "LOGIN", "warm", NOW.minusMinutes(5)));
+		store.warm();
+
+		jdbc.rows.clear();
+		jdbc.rows.add(log("bob", "LOGIN", "older", NOW.minusMinutes(10)));
+		jdbc.rows.add(log("bob", "LOGIN", "oldest", NOW.minusMinutes(20)));
+		store.record(log("bob", "VIEW_OTP", "new", NOW));
+
+		List<ActivityLog> recent = store.recentForUser("bob", 3);
+		assertEquals(List.of("new", "warm", "older"), recent.stream().map(ActivityLog::getDetails).toList());
+	}
+
+	@Test
+	void topUpKeepsOlderRowsWhenAnEntryIsRecordedDuringTheQuery() {
+		StubJdbcTemplate jdbc = new StubJdbcTemplate();
+		RecentActivityStore store = new RecentActivityStore(jdbc, CLOCK, 3, 10, 100, 60, 1);
+		store.warm();
+
+		jdbc.rows.add(log("carol", "LOGIN", "older", NOW.minusMinutes(10)));
+		jdbc.rows.add(log("carol", "LOGIN", "oldest", NOW.minusMinutes(20)));
+		jdbc.onQuery = () -> store.record(log("carol", "VIEW_OTP", "new", NOW));
+
+		List<ActivityLog> recent = store.recentForUser("carol", 3);
+		assertEquals(List.of("new", "older", "oldest"), recent.stream().map(ActivityLog::getDetails).toList());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void countsActionsPerMinuteOverTheWindow() {
+		RecentActivityStore store = new RecentActivityStore(new StubJdbcTemplate(), CLOCK, 3, 10, 100, 60, 0);
+		store.warm();
+
+		store.record(log("alice", "VIEW_OTP", null, NOW));
+		store.record(log("bob", "VIEW_OTP", null, NOW));
+		store.record(log("alice", "VIEW_OTP", null, NOW.minusMinutes(2)));
+		store.record(log("alice", "LOGIN", null, NOW.minusMinutes(1)));
+		store.record(log("alice", "LOGIN", null, NOW.minusMinutes(90)));
+
+		Map<String, Object> stats = store.stats(3);
+		assertEquals(4L, stats.get("total"));
+		assertEquals(3L, ((Map<String, Long>) stats.get("totals")).get("VIEW_OTP"));
+		assertArrayEquals(new long[] { 1, 0, 2 }, ((Map<String, long[]>) stats.get("series")).get("VIEW_OTP"));
+		assertArrayEquals(new long[] { 0, 1, 0 }, ((Map<String, long[]>) stats.get("series")).get("LOGIN"));
+	}
+
+	private static ActivityLog log(String username, String action, String details, LocalDateTime timestamp) {
+		ActivityLog log = new ActivityLog(username, action, details);
+		log.setTimestamp(timestamp);
+		return log;
+	}
+
+	private static final class StubJdbcTemplate extends JdbcTemplate {
+
+		private final List<ActivityLog> rows = new ArrayList<>();
+		private Runnable onQuery;
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+			List<T> result = (List<T>) new ArrayList<>(rows);
+			Runnable hook = onQuery;
+			onQuery = null;
+			if (hook != null) {
+				// Lands between the query and the ring update, as a concurrent request would
+				hook.run();
+			}
+			return result;
+		}
+
+		@Override
+		public void query(String sql, org.springframework.jdbc.core.RowCallbackHandler rch, Object... args) {
+			// No counters to warm
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.chrono.auth.service;
+
+import com.chrono.auth.entity.User;
+import com.chrono.auth.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserCacheTest {
+
+	private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+	private UserRepository userRepository;
+
+	private User alice;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = mock(UserRepository.class);
+		alice = new User("alice");
+		alice.setId(7L);
+		when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
+		when(userRepository.findById(7L)).thenReturn(Optional.of(alice));
+	}
+
+	@Test
+	void servesRepeatLookupsByUsernameAndIdFromMemory() {
+		UserCache cache = new UserCache(userRepository, Clock.fixed(NOW, ZoneOffset.UTC), 100, 60000);
+
+		cache.findByUsername("alice");
+		cache.findByUsername("alice");
+		assertEquals(alice, cache.findById(7L).orElseThrow());
+
+		verify(userRepository, times(1)).findByUsername("alice");
+		verify(userRepository, times(0)).findById(7L);
+		assertEquals(2L, cache.stats().get("hits"));
+		assertEquals(1L, cache.stats().get("misses"));
+	}
+
+	@Test
+	void reloadsAfterTheTtlAndAfterInvalidation() {
+		UserCache cache = new UserCache(userRepository, Clock.fixed(NOW, ZoneOffset.UTC), 100, 60000);
+		cache.findByUsername("alice");
+		cache.invalidate(alice);
+		cache.findByUsername("alice");
+		verify(userRepository, times(2)).findByUsername("alice");
+
+		// Entries expire as soon as they are written
+		UserCache expiring = new UserCache(userRepository, Clock.fixed(NOW, ZoneOffset.UTC), 100, 0);
+		expiring.findById(7L);
+		expiring.findById(7L);
+		verify(userRepository, times(2)).findById(7L);
+	}
+}
@@ -0,0 +1,41 @@
+package com.chrono.auth.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+	@Test
+	void neverMissesAnInsertedValue() {
+		BloomFilter filter = new BloomFilter(10_000, 0.001);
+		String[] values = new String[10_000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = UUID.randomUUID().toString();
+			filter.put(values[i]);
+		}
+
+		for (String value : values) {
+			assertTrue(filter.mightContain(value), value);
+		}
+	}
+
+	@Test
+	void keepsFalsePositivesNearTheConfiguredRateAtCapacity() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("revoked-" + i);
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("valid-" + i)) {
+				falsePositives++;
+			}
+		}
+		// 1% expected; allow for the spread of the hash
+		assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+	}
+}
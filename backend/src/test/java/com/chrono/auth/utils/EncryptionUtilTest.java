@@ -0,0 +1,83 @@
+package com.chrono.auth.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncryptionUtilTest {
+
+	private static final String PLAIN_SECRET = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+
+	@AfterEach
+	void restoreSharedTestKey() {
+		new EncryptionUtil().setKey("ChronoAuthTestKey");
+	}
+
+	@Test
+	void roundTripsThroughTheVersionedFormat() {
+		new EncryptionUtil().configure("ChronoAuthTestKey", 7, "");
+		String encrypted = EncryptionUtil.encrypt(PLAIN_SECRET);
+		byte[] raw = Base64.getDecoder().decode(encrypted);
+
+		assertEquals(EncryptionUtil.VERSION_GCM, raw[0]);
+		assertEquals(7, raw[1]);
+		assertEquals(PLAIN_SECRET, EncryptionUtil.decrypt(encrypted));
+		assertNotEquals(encrypted, EncryptionUtil.encrypt(PLAIN_SECRET));
+		assertFalse(EncryptionUtil.needsReEncryption(encrypted));
+	}
+
+	@Test
+	void readsLegacyEcbRowsAndFlagsThemForReEncryption() throws Exception {
+		new EncryptionUtil().setKey("ChronoAuthTestKey");
+		String legacy = legacyEncrypt("ChronoAuthTestKey", PLAIN_SECRET);
+
+		assertEquals(PLAIN_SECRET, EncryptionUtil.decrypt(legacy));
+		assertTrue(EncryptionUtil.needsReEncryption(legacy));
+	}
+
+	@Test
+	void readsRowsWrittenUnderAPreviousKey() throws Exception {
+		new EncryptionUtil().configure("OldKey", 1, "");
+		String oldRow = EncryptionUtil.encrypt(PLAIN_SECRET);
+		String oldLegacyRow = legacyEncrypt("OldKey", PLAIN_SECRET);
+
+		new EncryptionUtil().configure("NewKey", 2, "1:OldKey");
+
+		assertEquals(PLAIN_SECRET, EncryptionUtil.decrypt(oldRow));
+		assertEquals(PLAIN_SECRET, EncryptionUtil.decrypt(oldLegacyRow));
+		assertTrue(EncryptionUtil.needsReEncryption(oldRow));
+		assertFalse(EncryptionUtil.needsReEncryption(EncryptionUtil.encrypt(PLAIN_SECRET)));
+	}
+
+	@Test
+	void rejectsTamperedCiphertextInsteadOfReturningIt() {
+		new EncryptionUtil().setKey("ChronoAuthTestKey");
+		byte[] raw = Base64.getDecoder().decode(EncryptionUtil.encrypt(PLAIN_SECRET));
+		raw[raw.length - 1] ^= 1;
+
+		assertThrows(IllegalStateException.class,
+				() -> EncryptionUtil.decrypt(Base64.getEncoder().encodeToString(raw)));
+	}
+
+	@Test
+	void passesThroughUnencryptedLegacySecrets() {
+		assertEquals(PLAIN_SECRET, EncryptionUtil.decrypt(PLAIN_SECRET));
+		assertTrue(EncryptionUtil.needsReEncryption(PLAIN_SECRET));
+	}
+
+	private static String legacyEncrypt(String key, String value) throws Exception {
+		String padded = String.format("%1$-32s", key).replace(' ', '0');
+		Cipher cipher = Cipher.getInstance("AES");
+		cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(padded.getBytes(), "AES"));
+		return Base64.getEncoder().encodeToString(cipher.doFinal(value.getBytes()));
+	}
+}
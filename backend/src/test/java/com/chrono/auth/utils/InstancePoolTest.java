@@ -0,0 +1,62 @@
+package com.chrono.auth.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class InstancePoolTest {
+
+	@Test
+	void platformThreadsKeepTheirOwnInstance() {
+		AtomicInteger created = new AtomicInteger();
+		InstancePool<Object> pool = new InstancePool<>(() -> {
+			created.incrementAndGet();
+			return new Object();
+		}, 4);
+
+		Object first = pool.acquire();
+		pool.release(first);
+		assertSame(first, pool.acquire());
+		assertEquals(1, created.get());
+		assertEquals(0, pool.freeCount());
+	}
+
+	@Test
+	void virtualThreadsReuseABoundedFreeList() throws Exception {
+		assumeTrue(VirtualThreads.isSupported(), "needs a Java 21+ runtime");
+		AtomicInteger created = new AtomicInteger();
+		InstancePool<Object> pool = new InstancePool<>(() -> {
+			created.incrementAndGet();
+			return new Object();
+		}, 2);
+
+		ExecutorService executor = VirtualThreads.newPerTaskExecutor();
+		try {
+			executor.submit(() -> {
+				assertTrue(VirtualThreads.isCurrentThreadVirtual());
+				List<Object> held = new ArrayList<>();
+				for (int i = 0; i < 3; i++) {
+					held.add(pool.acquire());
+				}
+				held.forEach(pool::release);
+			}).get(10, TimeUnit.SECONDS);
+
+			// A later virtual thread gets a returned instance rather than a new one
+			executor.submit(() -> pool.release(pool.acquire())).get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(3, created.get());
+		assertEquals(2, pool.freeCount());
+	}
+}
@@ -0,0 +1,51 @@
+package com.chrono.auth.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OtpAuthUriTest {
+
+	@Test
+	void parsesLabelAndSecret() {
+		OtpAuthUri.Entry entry = OtpAuthUri
+				.parse("otpauth://totp/ACME%20Co:john@example.com?secret=JBSWY3DPEHPK3PXP&issuer=ACME%20Co&digits=6&period=30");
+
+		assertEquals("ACME Co:john@example.com", entry.serviceName());
+		assertEquals("JBSWY3DPEHPK3PXP", entry.secret());
+		assertEquals(TotpParameters.DEFAULT, entry.parameters());
+	}
+
+	@Test
+	void parsesAlgorithmDigitsAndPeriod() {
+		OtpAuthUri.Entry entry = OtpAuthUri
+				.parse("otpauth://totp/vpn?secret=JBSWY3DPEHPK3PXP&algorithm=sha512&digits=8&period=60");
+
+		assertEquals(new TotpParameters(TotpAlgorithm.SHA512, 8, 60), entry.parameters());
+	}
+
+	@Test
+	void formatRoundTrips() {
+		String uri = OtpAuthUri.format("Git+Hub / ops", "JBSWY3DPEHPK3PXP");
+
+		assertEquals(new OtpAuthUri.Entry("Git+Hub / ops", "JBSWY3DPEHPK3PXP"), OtpAuthUri.parse(uri));
+
+		TotpParameters parameters = new TotpParameters(TotpAlgorithm.SHA256, 8, 30);
+		uri = OtpAuthUri.format("vpn", "JBSWY3DPEHPK3PXP", parameters);
+		assertEquals("otpauth://totp/vpn?secret=JBSWY3DPEHPK3PXP&algorithm=SHA256&digits=8", uri);
+		assertEquals(new OtpAuthUri.Entry("vpn", "JBSWY3DPEHPK3PXP", parameters), OtpAuthUri.parse(uri));
+	}
+
+	@Test
+	void rejectsWhatCannotBeGenerated() {
+		assertThrows(IllegalArgumentException.class, () -> OtpAuthUri.parse("otpauth://hotp/x?secret=JBSWY3DPEHPK3PXP"));
+		assertThrows(IllegalArgumentException.class,
+				() -> OtpAuthUri.parse("otpauth://totp/x?secret=JBSWY3DPEHPK3PXP&digits=9"));
+		assertThrows(IllegalArgumentException.class,
+				() -> OtpAuthUri.parse("otpauth://totp/x?secret=JBSWY3DPEHPK3PXP&algorithm=MD5"));
+		assertThrows(IllegalArgumentException.class,
+				() -> OtpAuthUri.parse("otpauth://totp/x?secret=JBSWY3DPEHPK3PXP&period=abc"));
+		assertThrows(IllegalArgumentException.class, () -> OtpAuthUri.parse("otpauth://totp/x?issuer=y"));
+	}
+}
@@ -0,0 +1,83 @@
+package com.chrono.auth.utils;
+
+import org.apache.commons.codec.binary.Base32;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecretStoreTest {
+
+	private static final String PLAIN_SECRET = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+
+	static {
+		new EncryptionUtil().setKey("ChronoAuthTestKey");
+	}
+
+	@Test
+	void decodesOncePerServiceAndCiphertext() {
+		SecretStore store = new SecretStore(10);
+		String encrypted = EncryptionUtil.encrypt(PLAIN_SECRET);
+		AtomicReference<SecretKey> first = new AtomicReference<>();
+
+		store.applyWithKey(1L, encrypted, key -> {
+			first.set(key);
+			return 0;
+		});
+		store.applyWithKey(1L, encrypted, key -> {
+			assertSame(first.get(), key);
+			return 0;
+		});
+
+		assertEquals(1, store.size());
+		assertEquals("12345678901234567890", new String(first.get().getEncoded()));
+	}
+
+	@Test
+	void resolvesAReplacedSecretToItsOwnKey() {
+		SecretStore store = new SecretStore(10);
+		String replacement = "JBSWY3DPEHPK3PXP";
+
+		store.applyWithKey(1L, EncryptionUtil.encrypt(PLAIN_SECRET), key -> 0);
+		AtomicReference<SecretKey> replaced = new AtomicReference<>();
+		store.applyWithKey(1L, EncryptionUtil.encrypt(replacement), key -> {
+			replaced.set(key);
+			return 0;
+		});
+
+		assertEquals(2, store.size());
+		assertArrayEquals(new Base32().decode(replacement), replaced.get().getEncoded());
+	}
+
+	@Test
+	void zeroesKeysWhenEvicted() {
+		SecretStore store = new SecretStore(10);
+		AtomicReference<SecretKey> held = new AtomicReference<>();
+		store.applyWithKey(1L, EncryptionUtil.encrypt(PLAIN_SECRET), key -> {
+			held.set(key);
+			return 0;
+		});
+
+		store.evict(1L);
+
+		assertTrue(held.get().isDestroyed());
+		assertThrows(IllegalStateException.class, () -> held.get().getEncoded());
+	}
+
+	@Test
+	void staysWithinItsBound() {
+		SecretStore store = new SecretStore(2);
+		String encrypted = EncryptionUtil.encrypt(PLAIN_SECRET);
+		for (long id = 1; id <= 5; id++) {
+			store.applyWithKey(id, encrypted, key -> 0);
+		}
+
+		assertTrue(store.size() <= 2);
+	}
+}
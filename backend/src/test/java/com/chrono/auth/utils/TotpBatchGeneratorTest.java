@@ -0,0 +1,92 @@
+package com.chrono.auth.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TotpBatchGeneratorTest {
+
+	private static final String PLAIN_SECRET = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+
+	private static final String SECRET;
+
+	static {
+		new EncryptionUtil().setKey("ChronoAuthTestKey");
+		SECRET = EncryptionUtil.encrypt(PLAIN_SECRET);
+	}
+
+	private static final List<TotpParameters> MIXED = List.of(
+			TotpParameters.DEFAULT,
+			new TotpParameters(TotpAlgorithm.SHA256, 8, 30),
+			new TotpParameters(TotpAlgorithm.SHA512, 6, 60),
+			new TotpParameters(TotpAlgorithm.SHA1, 7, 60));
+
+	// Small chunks so every group is split and chunks run on several threads
+	private final TotpBatchGenerator generator = new TotpBatchGenerator(new SecretStore(1000), 3, 4);
+
+	@AfterEach
+	void tearDown() {
+		generator.shutdown();
+	}
+
+	@Test
+	void matchesSingleGenerationInInputOrderAcrossGroups() {
+		long millis = 1_111_111_109_000L;
+		List<TotpSecret> services = new ArrayList<>();
+		for (long id = 0; id < 50; id++) {
+			services.add(new Secret(id, MIXED.get((int) (id % MIXED.size()))));
+		}
+
+		String[][] codes = generator.generate(services, millis, 2);
+
+		assertEquals(services.size(), codes.length);
+		for (int i = 0; i < services.size(); i++) {
+			TotpParameters parameters = services.get(i).parameters();
+			long step = parameters.timeStep(millis);
+			assertArrayEquals(new String[] {
+					TotpUtils.getTOTPCode(PLAIN_SECRET, step, parameters),
+					TotpUtils.getTOTPCode(PLAIN_SECRET, step + 1, parameters) }, codes[i], "service " + i);
+		}
+	}
+
+	@Test
+	void handlesEmptyAndSingleChunkBatches() {
+		assertEquals(0, generator.generate(List.of(), 59_000L, 2).length);
+
+		String[][] codes = generator.generate(List.of(new Secret(1L, TotpParameters.DEFAULT)), 59_000L, 1);
+		assertArrayEquals(new String[] { "287082" }, codes[0]);
+	}
+
+	private record Secret(Long id, TotpParameters parameters) implements TotpSecret {
+
+		@Override
+		public Long getId() {
+			return id;
+		}
+
+		@Override
+		public String getEncryptedSecretKey() {
+			return SECRET;
+		}
+
+		@Override
+		public TotpAlgorithm getAlgorithm() {
+			return parameters.algorithm();
+		}
+
+		@Override
+		public int getDigits() {
+			return parameters.digits();
+		}
+
+		@Override
+		public int getPeriod() {
+			return parameters.period();
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.chrono.auth.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TotpCodeCacheTest {
+
+	private static final String PLAIN_SECRET = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+
+	private static final String SECRET;
+
+	static {
+		new EncryptionUtil().setKey("ChronoAuthTestKey");
+		SECRET = EncryptionUtil.encrypt(PLAIN_SECRET);
+	}
+
+	@Test
+	void servesRepeatedReadsFromTheSameWindow() {
+		MutableClock clock = new MutableClock(59_000L);
+		TotpCodeCache cache = newCache(clock, new SecretStore(100), 100);
+
+		assertEquals("287082", cache.getCode(1L, SECRET));
+		assertEquals("287082", cache.getCode(1L, SECRET));
+
+		assertEquals(1L, cache.stats().get("hits"));
+		assertEquals(1L, cache.stats().get("misses"));
+	}
+
+	@Test
+	void dropsEntriesWhenTheWindowRollsOver() {
+		MutableClock clock = new MutableClock(30_000L);
+		TotpCodeCache cache = newCache(clock, new SecretStore(100), 100);
+		cache.getCode(1L, SECRET);
+		cache.getCode(2L, SECRET);
+
+		clock.millis = 60_000L;
+		assertEquals(TotpUtils.getTOTPCode(PLAIN_SECRET, 2L), cache.getCode(1L, SECRET));
+
+		assertEquals(2L, cache.stats().get("evictions"));
+		assertEquals(1, cache.stats().get("size"));
+	}
+
+	@Test
+	void precomputesNextWindowForActiveServicesBeforeBoundary() {
+		MutableClock clock = new MutableClock(30_000L);
+		TotpCodeCache cache = newCache(clock, new SecretStore(100), 100);
+		cache.getCode(1L, SECRET);
+
+		cache.precomputeNextWindow();
+		assertEquals(0L, cache.stats().get("precomputed"));
+
+		clock.millis = 58_500L;
+		cache.precomputeNextWindow();
+		assertEquals(1L, cache.stats().get("precomputed"));
+
+		clock.millis = 60_000L;
+		assertEquals(TotpUtils.getTOTPCode(PLAIN_SECRET, 2L), cache.getCode(1L, SECRET));
+		assertEquals(1L, cache.stats().get("hits"));
+	}
+
+	@Test
+	void doesNotGrowPastTheWindowBound() {
+		TotpCodeCache cache = newCache(new MutableClock(30_000L), new SecretStore(100), 2);
+		for (long id = 1; id <= 5; id++) {
+			cache.getCode(id, SECRET);
+		}
+
+		assertEquals(2, cache.stats().get("size"));
+	}
+
+	@Test
+	void batchesMissesAcrossPeriodsAndServesRepeatsFromTheCache() {
+		MutableClock clock = new MutableClock(59_000L);
+		TotpCodeCache cache = newCache(clock, new SecretStore(100), 100);
+		TotpParameters sixtySeconds = new TotpParameters(TotpAlgorithm.SHA256, 8, 60);
+		List<TotpSecret> services = List.of(new Secret(1L, TotpParameters.DEFAULT), new Secret(2L, sixtySeconds));
+
+		List<TotpCodeCache.Codes> codes = cache.getCodes(services);
+		assertEquals(new TotpCodeCache.Codes("287082", TotpUtils.getTOTPCode(PLAIN_SECRET, 2L), 60_000L), codes.get(0));
+		assertEquals(new TotpCodeCache.Codes(TotpUtils.getTOTPCode(PLAIN_SECRET, 0L, sixtySeconds),
+				TotpUtils.getTOTPCode(PLAIN_SECRET, 1L, sixtySeconds), 60_000L), codes.get(1));
+		assertEquals(4L, cache.stats().get("misses"));
+
+		assertEquals(codes, cache.getCodes(services));
+		assertEquals(4L, cache.stats().get("hits"));
+
+		// The cached next codes become the current ones
+		clock.millis = 61_000L;
+		assertEquals(TotpUtils.getTOTPCode(PLAIN_SECRET, 2L), cache.getCode(1L, SECRET));
+		assertEquals(TotpUtils.getTOTPCode(PLAIN_SECRET, 1L, sixtySeconds), cache.getCode(2L, SECRET, sixtySeconds));
+		assertEquals(6L, cache.stats().get("hits"));
+	}
+
+	@Test
+	void precomputesEachPeriodBeforeItsOwnBoundary() {
+		MutableClock clock = new MutableClock(60_000L);
+		TotpCodeCache cache = newCache(clock, new SecretStore(100), 100);
+		TotpParameters sixtySeconds = new TotpParameters(TotpAlgorithm.SHA1, 6, 60);
+		cache.getCode(1L, SECRET, sixtySeconds);
+
+		// A 30-second boundary only
+		clock.millis = 88_500L;
+		cache.precomputeNextWindow();
+		assertEquals(0L, cache.stats().get("precomputed"));
+
+		clock.millis = 118_500L;
+		cache.precomputeNextWindow();
+		assertEquals(1L, cache.stats().get("precomputed"));
+
+		clock.millis = 120_000L;
+		assertEquals(TotpUtils.getTOTPCode(PLAIN_SECRET, 2L, sixtySeconds), cache.getCode(1L, SECRET, sixtySeconds));
+		assertEquals(1L, cache.stats().get("hits"));
+	}
+
+	@Test
+	void evictingAServiceDropsItsDecodedKey() {
+		SecretStore secretStore = new SecretStore(100);
+		TotpCodeCache cache = newCache(new MutableClock(30_000L), secretStore, 100);
+		cache.getCode(1L, SECRET);
+		assertEquals(1, secretStore.size());
+
+		cache.evictService(1L);
+		assertEquals(0, secretStore.size());
+	}
+
+	private static TotpCodeCache newCache(MutableClock clock, SecretStore secretStore, int maxEntries) {
+		return new TotpCodeCache(clock, secretStore, new TotpBatchGenerator(secretStore, 256, 1), maxEntries, 2000);
+	}
+
+	private record Secret(Long id, TotpParameters parameters) implements TotpSecret {
+
+		@Override
+		public Long getId() {
+			return id;
+		}
+
+		@Override
+		public String getEncryptedSecretKey() {
+			return SECRET;
+		}
+
+		@Override
+		public TotpAlgorithm getAlgorithm() {
+			return parameters.algorithm();
+		}
+
+		@Override
+		public int getDigits() {
+			return parameters.digits();
+		}
+
+		@Override
+		public int getPeriod() {
+			return parameters.period();
+		}
+	}
+}
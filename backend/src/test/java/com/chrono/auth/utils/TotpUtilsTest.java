@@ -0,0 +1,62 @@
+package com.chrono.auth.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TotpUtilsTest {
+
+	// ASCII "12345678901234567890", the RFC 6238 Appendix B SHA1 seed
+	private static final String RFC_SEED = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+
+	// The 32-byte SHA256 and 64-byte SHA512 seeds
+	private static final String RFC_SEED_32 = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQGEZA";
+
+	private static final String RFC_SEED_64 = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ"
+			+ "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQGEZDGNA";
+
+	@Test
+	void matchesRfc6238TestVectors() {
+		assertEquals("94287082", TotpUtils.generateTOTP(RFC_SEED, Long.toHexString(59L / 30), "8"));
+		assertEquals("07081804", TotpUtils.generateTOTP(RFC_SEED, Long.toHexString(1111111109L / 30), "8"));
+		assertEquals("14050471", TotpUtils.generateTOTP(RFC_SEED, Long.toHexString(1111111111L / 30), "8"));
+		assertEquals("89005924", TotpUtils.generateTOTP(RFC_SEED, Long.toHexString(1234567890L / 30), "8"));
+		assertEquals("69279037", TotpUtils.generateTOTP(RFC_SEED, Long.toHexString(2000000000L / 30), "8"));
+		assertEquals("65353130", TotpUtils.generateTOTP(RFC_SEED, Long.toHexString(20000000000L / 30), "8"));
+	}
+
+	@Test
+	void matchesRfc6238Sha256AndSha512TestVectors() {
+		TotpParameters sha256 = new TotpParameters(TotpAlgorithm.SHA256, 8, 30);
+		TotpParameters sha512 = new TotpParameters(TotpAlgorithm.SHA512, 8, 30);
+
+		assertEquals("46119246", TotpUtils.getTOTPCode(RFC_SEED_32, 59L / 30, sha256));
+		assertEquals("68084774", TotpUtils.getTOTPCode(RFC_SEED_32, 1111111109L / 30, sha256));
+		assertEquals("77737706", TotpUtils.getTOTPCode(RFC_SEED_32, 20000000000L / 30, sha256));
+		assertEquals("90693936", TotpUtils.getTOTPCode(RFC_SEED_64, 59L / 30, sha512));
+		assertEquals("25091201", TotpUtils.getTOTPCode(RFC_SEED_64, 1111111109L / 30, sha512));
+		assertEquals("47863826", TotpUtils.getTOTPCode(RFC_SEED_64, 20000000000L / 30, sha512));
+	}
+
+	@Test
+	void truncatesAndLeftPadsShorterCodes() {
+		assertEquals("287082", TotpUtils.generateTOTP(RFC_SEED, "1", "6"));
+		assertEquals("081804", TotpUtils.generateTOTP(RFC_SEED, "23523EC", "6"));
+		assertEquals("081804", TotpUtils.generateTOTP(RFC_SEED, "00000000023523EC", "6"));
+	}
+
+	@Test
+	void engineIsStableAcrossRepeatedCalls() {
+		TotpEngine engine = new TotpEngine(1);
+		for (int i = 0; i < 3; i++) {
+			assertEquals("94287082", engine.generate(RFC_SEED, 1L, 8));
+			assertEquals("07081804", engine.generate(RFC_SEED, 0x23523ECL, 8));
+		}
+	}
+
+	@Test
+	void validatesBase32Secrets() {
+		assertTrue(TotpUtils.isValidSecret(RFC_SEED));
+	}
+}
@@ -0,0 +1,89 @@
+package com.chrono.auth.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TotpVerifierTest {
+
+	private static final String PLAIN_SECRET = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+
+	private static final String SECRET;
+
+	static {
+		new EncryptionUtil().setKey("ChronoAuthTestKey");
+		SECRET = EncryptionUtil.encrypt(PLAIN_SECRET);
+	}
+
+	private final MutableClock clock = new MutableClock(300_000L);
+
+	private final TotpVerifier verifier = new TotpVerifier(clock, new InMemoryReplayGuard(), new SecretStore(100), 1);
+
+	@Test
+	void acceptsCodesWithinTheDriftWindow() {
+		assertEquals(TotpVerifier.Result.VALID, verifier.verify(1L, SECRET, TotpUtils.getTOTPCode(PLAIN_SECRET, 9L)));
+		assertEquals(TotpVerifier.Result.VALID, verifier.verify(1L, SECRET, TotpUtils.getTOTPCode(PLAIN_SECRET, 10L)));
+		assertEquals(TotpVerifier.Result.VALID, verifier.verify(1L, SECRET, TotpUtils.getTOTPCode(PLAIN_SECRET, 11L)));
+		assertEquals(TotpVerifier.Result.INVALID, verifier.verify(1L, SECRET, TotpUtils.getTOTPCode(PLAIN_SECRET, 12L)));
+	}
+
+	@Test
+	void usesTheServiceAlgorithmDigitsAndPeriod() {
+		TotpParameters parameters = new TotpParameters(TotpAlgorithm.SHA256, 8, 60);
+		String code = TotpUtils.getTOTPCode(PLAIN_SECRET, 4L, parameters);
+
+		assertEquals(TotpVerifier.Result.INVALID, verifier.verify(1L, SECRET, code));
+		assertEquals(TotpVerifier.Result.INVALID, verifier.verify(1L, SECRET, parameters, code.substring(2)));
+		assertEquals(TotpVerifier.Result.VALID, verifier.verify(1L, SECRET, parameters, code));
+		assertEquals(TotpVerifier.Result.REPLAYED, verifier.verify(1L, SECRET, parameters, code));
+	}
+
+	@Test
+	void replayStateOfLongerPeriodsOutlivesThePurge() {
+		TotpParameters parameters = new TotpParameters(TotpAlgorithm.SHA1, 6, 120);
+		String code = TotpUtils.getTOTPCode(PLAIN_SECRET, 2L, parameters);
+		assertEquals(TotpVerifier.Result.VALID, verifier.verify(1L, SECRET, parameters, code));
+
+		// Still inside the drift window of a 120-second step, long after a 30-second one
+		clock.millis = 420_000L;
+		verifier.purgeExpired();
+		assertEquals(TotpVerifier.Result.REPLAYED, verifier.verify(1L, SECRET, parameters, code));
+	}
+
+	@Test
+	void rejectsMalformedCodes() {
+		assertEquals(TotpVerifier.Result.INVALID, verifier.verify(1L, SECRET, null));
+		assertEquals(TotpVerifier.Result.INVALID, verifier.verify(1L, SECRET, "12345"));
+		assertEquals(TotpVerifier.Result.INVALID, verifier.verify(1L, SECRET, "12a456"));
+	}
+
+	@Test
+	void rejectsReplayOfTheSameStepPerService() {
+		String code = TotpUtils.getTOTPCode(PLAIN_SECRET, 10L);
+
+		assertEquals(TotpVerifier.Result.VALID, verifier.verify(1L, SECRET, code));
+		assertEquals(TotpVerifier.Result.REPLAYED, verifier.verify(1L, SECRET, code));
+		assertEquals(TotpVerifier.Result.VALID, verifier.verify(2L, SECRET, code));
+	}
+
+	@Test
+	void purgeDropsOnlyStepsOutsideTheWindow() {
+		InMemoryReplayGuard replayGuard = new InMemoryReplayGuard();
+		TotpVerifier verifier = new TotpVerifier(clock, replayGuard, new SecretStore(100), 1);
+		String oldCode = TotpUtils.getTOTPCode(PLAIN_SECRET, 10L);
+		assertEquals(TotpVerifier.Result.VALID, verifier.verify(1L, SECRET, oldCode));
+
+		clock.millis = 390_000L;
+		String recentCode = TotpUtils.getTOTPCode(PLAIN_SECRET, 12L);
+		assertEquals(TotpVerifier.Result.VALID, verifier.verify(1L, SECRET, recentCode));
+		verifier.purgeExpired();
+
+		// Step 10 was recorded until its window closed at 360 s and is gone; step 12 is kept
+		assertTrue(replayGuard.markUsed(1L, TotpParameters.DEFAULT.validUntil(11L) / 1000));
+		assertFalse(replayGuard.markUsed(1L, TotpParameters.DEFAULT.validUntil(13L) / 1000));
+		assertEquals(TotpVerifier.Result.REPLAYED, verifier.verify(1L, SECRET, recentCode));
+		assertEquals(TotpVerifier.Result.INVALID, verifier.verify(1L, SECRET, oldCode));
+	}
+}
@@ -6,67 +6,85 @@ import jsQR from 'jsqr';
 function Dashboard({ username, onLogout }) {
     const [services, setServices] = useState([]);
     const [logs, setLogs] = useState([]);
+    const [logsCursor, setLogsCursor] = useState(null);
     const [view, setView] = useState('otp'); // 'otp' or 'logs'
     const [showAddModal, setShowAddModal] = useState(false);
     const [addMethod, setAddMethod] = useState('qr'); // 'qr' or 'manual'
     const [newServiceName, setNewServiceName] = useState('');
     const [newSecretKey, setNewSecretKey] = useState('');
+    // algorithm, digits and period from a scanned otpauth:// URI; server defaults otherwise
+    const [newParameters, setNewParameters] = useState({});
     const [qrError, setQrError] = useState('');
     const fileInputRef = useRef(null);
 
     // Auto-refresh OTP timers
-    const [timeLeft, setTimeLeft] = useState(30 - (Math.floor(Date.now() / 1000) % 30));
+    const [now, setNow] = useState(Math.floor(Date.now() / 1000));
+    const secondsLeft = (period = 30) => period - (now % period);
 
     useEffect(() => {
         fetchServices();
     }, []);
 
+    // Countdown only; fresh codes are pushed by the server at each service's step boundary
     useEffect(() => {
         const timer = setInterval(() => {
-            const remaining = 30 - (Math.floor(Date.now() / 1000) % 30);
-            setTimeLeft(remaining);
-
-            // When cycle resets, fetch fresh codes
-            if (remaining === 30) {
-                services.forEach(s => fetchOtpCode(s.id));
-            }
+            setNow(Math.floor(Date.now() / 1000));
         }, 1000);
         return () => clearInterval(timer);
-    }, [services]);
+    }, []);
+
+    useEffect(() => {
+        const stream = new EventSource('/api/otp/stream');
+        stream.addEventListener('codes', (e) => {
+            const data = JSON.parse(e.data);
+            applyCodes(data.services);
+        });
+        return () => stream.close();
+    }, []);
+
+    const applyCodes = (tokens) => {
+        const codes = new Map(tokens.map(t => [t.id, t]));
+        setServices(prev => prev.map(s => codes.has(s.id)
+            ? { ...s, code: codes.get(s.id).code, period: codes.get(s.id).period }
+            : s));
+    };
 
     const fetchServices = async () => {
         try {
-            const res = await fetch('/api/otp');
-            if (res.ok) {
+            const all = [];
+            for (let page = 0; ; page++) {
+                const res = await fetch(`/api/otp?page=${page}&size=500&sort=serviceName`);
+                if (!res.ok) return;
                 const data = await res.json();
-                // Add code placeholders and fetch immediately
-                const initialServices = data.map(s => ({ ...s, code: '------' }));
-                setServices(initialServices);
-                initialServices.forEach(s => fetchOtpCode(s.id));
+                all.push(...data.items);
+                if (page + 1 >= data.totalPages) break;
             }
+            // Add code placeholders and fetch immediately
+            setServices(all.map(s => ({ ...s, code: '------' })));
+            fetchOtpCodes();
         } catch (err) {
             console.error(err);
         }
     };
 
-    const fetchOtpCode = async (id) => {
+    const fetchOtpCodes = async () => {
         try {
-            const res = await fetch(`/api/otp/${id}/token`);
+            const res = await fetch('/api/otp/tokens');
             if (res.ok) {
-                const data = await res.json();
-                setServices(prev => prev.map(s => s.id === id ? { ...s, code: data.code } : s));
+                applyCodes(await res.json());
             }
         } catch (err) {
             console.error(err);
         }
     };
 
-    const fetchLogs = async () => {
+    const fetchLogs = async (cursor = null) => {
         try {
-            const res = await fetch('/api/logs');
+            const res = await fetch(cursor ? `/api/logs?cursor=${encodeURIComponent(cursor)}` : '/api/logs');
             if (res.ok) {
                 const data = await res.json();
-                setLogs(data);
+                setLogs(prev => cursor ? [...prev, ...data.items] : data.items);
+                setLogsCursor(data.nextCursor);
             }
         } catch (err) {
             console.error(err);
@@ -79,12 +97,13 @@ function Dashboard({ username, onLogout }) {
             const res = await fetch('/api/otp', {
                 method: 'POST',
                 headers: { 'Content-Type': 'application/json' },
-                body: JSON.stringify({ serviceName: newServiceName, secretKey: newSecretKey.replace(/\s+/g, '').toUpperCase() })
+                body: JSON.stringify({ serviceName: newServiceName, secretKey: newSecretKey.replace(/\s+/g, '').toUpperCase(), ...newParameters })
             });
             if (res.ok) {
                 setShowAddModal(false);
                 setNewServiceName('');
                 setNewSecretKey('');
+                setNewParameters({});
                 setAddMethod('qr');
                 setQrError('');
                 fetchServices();
@@ -148,8 +167,14 @@ function Dashboard({ username, onLogout }) {
                 return;
             }
 
+            const parameters = {};
+            if (url.searchParams.get('algorithm')) parameters.algorithm = url.searchParams.get('algorithm');
+            if (url.searchParams.get('digits')) parameters.digits = parseInt(url.searchParams.get('digits'), 10);
+            if (url.searchParams.get('period')) parameters.period = parseInt(url.searchParams.get('period'), 10);
+
             setNewServiceName(issuer || 'Unknown Service');
             setNewSecretKey(secret);
+            setNewParameters(parameters);
             setAddMethod('manual'); // Switch to manual tab to show the decoded result for confirmation
             setQrError('');
         } catch (err) {
@@ -170,9 +195,9 @@ function Dashboard({ username, onLogout }) {
         }
     };
 
-    const calculateDashOffset = () => {
+    const calculateDashOffset = (period = 30) => {
         // Calculate width percentage instead of stroke displacement
-        return `${(timeLeft / 30) * 100}%`;
+        return `${(secondsLeft(period) / period) * 100}%`;
     };
 
     const handleCopy = (code) => {
@@ -220,7 +245,10 @@ function Dashboard({ username, onLogout }) {
                         </div>
 
                         <div className="otp-grid">
-                            {services.map(service => (
+                            {services.map(service => {
+                                const timeLeft = secondsLeft(service.period);
+                                const half = Math.ceil(service.code.length / 2);
+                                return (
                                 <div key={service.id} className="glass-panel otp-card animate-fade-in" style={{ padding: '1.5rem 2rem' }}>
                                     <div className="otp-card-header" style={{ marginBottom: '1rem' }}>
                                         <div className="service-name" style={{ display: 'flex', flexDirection: 'column', alignItems: 'flex-start', gap: '0.25rem' }}>
@@ -240,7 +268,7 @@ function Dashboard({ username, onLogout }) {
 
                                     <div className="otp-value-container" style={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center' }}>
                                         <div className="otp-code">
-                                            {service.code.substring(0, 3)} <span>{service.code.substring(3, 6)}</span>
+                                            {service.code.substring(0, half)} <span>{service.code.substring(half)}</span>
                                         </div>
                                         <div style={{ display: 'flex', gap: '1rem' }}>
                                             <button
@@ -264,11 +292,12 @@ function Dashboard({ username, onLogout }) {
                                     <div className="timer-container" title={`${timeLeft} seconds remaining`}>
                                         <div
                                             className={`timer-progress ${timeLeft <= 5 ? 'warning' : ''}`}
-                                            style={{ width: calculateDashOffset() }}
+                                            style={{ width: calculateDashOffset(service.period) }}
                                         />
                                     </div>
                                 </div>
-                            ))}
+                                );
+                            })}
 
                             {services.length === 0 && (
                                 <div style={{ gridColumn: '1 / -1', textAlign: 'center', padding: '4rem', color: 'var(--text-secondary)' }}>
@@ -313,6 +342,11 @@ function Dashboard({ username, onLogout }) {
                                 </tbody>
                             </table>
                         </div>
+                        {logsCursor && (
+                            <button className="btn" style={{ marginTop: '1rem', width: '100%' }} onClick={() => fetchLogs(logsCursor)}>
+                                Load more
+                            </button>
+                        )}
                     </div>
                 )}
 